@@ -0,0 +1,106 @@
+package max.rindon.rps.ai;
+
+import max.rindon.rps.domain.Move;
+import max.rindon.rps.domain.MoveHistory;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of a move for each strategy factory, given an opponent history of {@code historyLength} moves.
+ * <p> Each invocation appends one opponent move to the history, like a game does,
+ * so incremental strategies are measured in their steady state rather than replaying the history every time.
+ * The history is rebuilt before each iteration.
+ */
+@State(Scope.Thread)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(1)
+public class StrategiesBenchmark {
+
+    private static final int MASK = 1023;
+
+    @Param({"10", "1000", "100000"})
+    public int historyLength;
+
+    private final Move[] moves = new Move[MASK + 1];
+    private final Random random = new Random(7);
+    private MoveHistory history;
+    private List<Move> historyView;
+    private int i;
+
+    private Strategy markovChain;
+    private Strategy beatMostFrequent;
+    private Strategy echo;
+    private Strategy lastLost;
+    private Strategy toss;
+    private Strategy alternate;
+
+    @Setup
+    public void setupMoves() {
+        Random movesRandom = new Random(42);
+        for (int j = 0; j <= MASK; j++) {
+            moves[j] = Move.values()[movesRandom.nextInt(3)];
+        }
+    }
+
+    @Setup(Level.Iteration)
+    public void setupHistory() {
+        history = new MoveHistory();
+        historyView = Collections.unmodifiableList(history);
+        for (int j = 0; j < historyLength; j++) {
+            history.append(moves[j & MASK]);
+        }
+        Strategy onFirst = Strategies.random(random::nextInt);
+        markovChain = Strategies.markovChain(onFirst, random::nextInt);
+        beatMostFrequent = Strategies.beatMostFrequent(onFirst);
+        echo = Strategies.echo(onFirst);
+        lastLost = Strategies.lastLost(onFirst);
+        toss = Strategies.toss(Strategies.markovChain(onFirst, random::nextInt), echo, random::nextInt);
+        alternate = Strategies.alternate(Strategies.markovChain(onFirst, random::nextInt), lastLost);
+        for (Strategy strategy : new Strategy[]{markovChain, beatMostFrequent, echo, lastLost, toss, alternate}) {
+            strategy.makeMove(historyView); // let incremental strategies learn the initial history outside of measurement
+        }
+    }
+
+    private List<Move> nextHistory() {
+        i = (i + 1) & MASK;
+        history.append(moves[i]);
+        return historyView;
+    }
+
+    @Benchmark
+    public Move markovChain() {
+        return markovChain.makeMove(nextHistory());
+    }
+
+    @Benchmark
+    public Move beatMostFrequent() {
+        return beatMostFrequent.makeMove(nextHistory());
+    }
+
+    @Benchmark
+    public Move echo() {
+        return echo.makeMove(nextHistory());
+    }
+
+    @Benchmark
+    public Move lastLost() {
+        return lastLost.makeMove(nextHistory());
+    }
+
+    @Benchmark
+    public Move toss() {
+        return toss.makeMove(nextHistory());
+    }
+
+    @Benchmark
+    public Move alternate() {
+        return alternate.makeMove(nextHistory());
+    }
+}
@@ -0,0 +1,72 @@
+package max.rindon.rps.domain;
+
+import max.rindon.rps.ai.Strategies;
+import max.rindon.rps.ai.Strategy;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of playing a round depending on how long the game already is.
+ * <p> Before each iteration a fresh game plays {@code historyLength} rounds,
+ * so the history length grows only by the number of rounds played during the iteration.
+ */
+@State(Scope.Thread)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(1)
+public class GameBenchmark {
+
+    private static final int MASK = 1023;
+
+    @Param({"10", "1000", "100000", "1000000"})
+    public int historyLength;
+
+    @Param({"markovChain", "variableOrderMarkov", "beatMostFrequent", "random"})
+    public String strategy;
+
+    private final Move[] playerMoves = new Move[MASK + 1];
+    private Game game;
+    private int i;
+
+    @Setup
+    public void setupMoves() {
+        Random random = new Random(42);
+        for (int j = 0; j <= MASK; j++) {
+            playerMoves[j] = Move.values()[random.nextInt(3)];
+        }
+    }
+
+    @Setup(Level.Iteration)
+    public void setupGame() {
+        game = new Game(strategy());
+        for (int j = 0; j < historyLength; j++) {
+            game.playRound(playerMoves[j & MASK]);
+        }
+    }
+
+    @Benchmark
+    public Round playRound() {
+        i = (i + 1) & MASK;
+        return game.playRound(playerMoves[i]);
+    }
+
+    private Strategy strategy() {
+        Random random = new Random(7);
+        switch (strategy) {
+            case "markovChain":
+                return Strategies.markovChain(Strategies.random(random::nextInt), random::nextInt);
+            case "variableOrderMarkov":
+                return Strategies.variableOrderMarkov(4, Strategies.random(random::nextInt));
+            case "beatMostFrequent":
+                return Strategies.beatMostFrequent(Strategies.random(random::nextInt));
+            case "random":
+                return Strategies.random(random::nextInt);
+            default:
+                throw new IllegalArgumentException("Unknown strategy: " + strategy);
+        }
+    }
+}
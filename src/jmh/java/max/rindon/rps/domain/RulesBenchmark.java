@@ -0,0 +1,51 @@
+package max.rindon.rps.domain;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of evaluating a round and of looking up which move beats which.
+ */
+@State(Scope.Thread)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(1)
+public class RulesBenchmark {
+
+    private static final int MASK = 1023;
+
+    private final Move[] firsts = new Move[MASK + 1];
+    private final Move[] seconds = new Move[MASK + 1];
+    private int i;
+
+    @Setup
+    public void setup() {
+        Random random = new Random(42);
+        for (int j = 0; j <= MASK; j++) {
+            firsts[j] = Move.values()[random.nextInt(3)];
+            seconds[j] = Move.values()[random.nextInt(3)];
+        }
+    }
+
+    @Benchmark
+    public Outcome evaluate() {
+        i = (i + 1) & MASK;
+        return Rules.evaluate(firsts[i], seconds[i]);
+    }
+
+    @Benchmark
+    public Move beats() {
+        i = (i + 1) & MASK;
+        return firsts[i].beats();
+    }
+
+    @Benchmark
+    public Move losesTo() {
+        i = (i + 1) & MASK;
+        return firsts[i].losesTo();
+    }
+}
@@ -0,0 +1,159 @@
+package max.rindon.rps.server;
+
+import max.rindon.rps.ai.Strategies;
+import max.rindon.rps.ui.UI;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the session density of {@link BlockingGameServer} running games on a platform thread pool and on virtual threads.
+ * <p> For each mode a server is started and the given number of sessions connect to it at once,
+ * each playing a number of rounds before quitting. We report how long sessions waited for the first prompt
+ * (that's where a pool smaller than the number of sessions shows), round latency percentiles and overall throughput.
+ * Clients run on virtual threads when available, so that the client side doesn't limit the number of sessions.
+ */
+public class ExecutionModeBenchmark {
+
+    private static final byte[][] MOVES = {"r\n".getBytes(StandardCharsets.UTF_8),
+            "p\n".getBytes(StandardCharsets.UTF_8), "s\n".getBytes(StandardCharsets.UTF_8)};
+    private static final byte[] QUIT = ":q\n".getBytes(StandardCharsets.UTF_8);
+
+    /**
+     * @param args number of sessions (2000 by default), rounds per session and size of the platform thread pool
+     */
+    public static void main(String[] args) throws Exception {
+        int sessions = args.length > 0 ? Integer.parseInt(args[0]) : 2000;
+        int rounds = args.length > 1 ? Integer.parseInt(args[1]) : 50;
+        int threads = args.length > 2 ? Integer.parseInt(args[2]) : 200;
+
+        for (BlockingGameServer.Mode mode : BlockingGameServer.Mode.values()) {
+            BlockingGameServer server;
+            try {
+                server = new BlockingGameServer(0, mode, threads, () -> Strategies.markovChain(Strategies.random()));
+            } catch (UnsupportedOperationException e) {
+                System.out.println(mode + ": " + e.getMessage());
+                continue;
+            }
+            server.start();
+            try {
+                run(mode, server.getPort(), sessions, rounds);
+            } finally {
+                server.stop();
+            }
+        }
+    }
+
+    private static void run(BlockingGameServer.Mode mode, int port, int sessions, int rounds) throws InterruptedException {
+        Samples startLatencies = new Samples(sessions);
+        Samples roundLatencies = new Samples(sessions * rounds);
+        long[] failures = new long[1];
+        ExecutorService clients = clientExecutor();
+        long start = System.nanoTime();
+        for (int i = 0; i < sessions; i++) {
+            clients.execute(() -> {
+                long[] latencies = new long[rounds];
+                try {
+                    long startLatency = play(port, latencies);
+                    // only sessions played to the end are recorded, so failed ones don't skew the percentiles
+                    startLatencies.add(startLatency);
+                    roundLatencies.addAll(latencies);
+                } catch (IOException e) {
+                    synchronized (failures) {
+                        failures[0]++;
+                    }
+                }
+            });
+        }
+        clients.shutdown();
+        clients.awaitTermination(1, TimeUnit.HOURS);
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        startLatencies.sort();
+        roundLatencies.sort();
+        System.out.println(String.format(Locale.ROOT,
+                "%-16s sessions %d, failed %d, %.0f rounds/s, first prompt p50 %.2f ms p99 %.2f ms, round p50 %.3f ms p99 %.3f ms max %.3f ms",
+                mode, sessions, failures[0], roundLatencies.count / seconds,
+                startLatencies.millis(0.5), startLatencies.millis(0.99),
+                roundLatencies.millis(0.5), roundLatencies.millis(0.99), roundLatencies.millis(1.0)));
+    }
+
+    // plays a session, filling in the latency of every round, and returns how long it waited for the first prompt
+    private static long play(int port, long[] roundLatencies) throws IOException {
+        long start = System.nanoTime();
+        try (Socket socket = new Socket("localhost", port)) {
+            socket.setTcpNoDelay(true);
+            BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+            OutputStream out = socket.getOutputStream();
+            awaitPrompt(in);
+            long startLatency = System.nanoTime() - start;
+            for (int round = 0; round < roundLatencies.length; round++) {
+                long sent = System.nanoTime();
+                out.write(MOVES[ThreadLocalRandom.current().nextInt(MOVES.length)]);
+                out.flush();
+                awaitPrompt(in);
+                roundLatencies[round] = System.nanoTime() - sent;
+            }
+            out.write(QUIT);
+            out.flush();
+            return startLatency;
+        }
+    }
+
+    private static void awaitPrompt(BufferedReader in) throws IOException {
+        for (String line = in.readLine(); !UI.MOVE_PROMPT_MESSAGE.equals(line); line = in.readLine()) {
+            if (line == null) {
+                throw new IOException("Connection closed");
+            }
+        }
+    }
+
+    private static ExecutorService clientExecutor() {
+        try {
+            return BlockingGameServer.newVirtualThreadPerTaskExecutor();
+        } catch (UnsupportedOperationException e) {
+            return Executors.newCachedThreadPool();
+        }
+    }
+
+    // latencies recorded so far, percentiles are taken over the recorded prefix only
+    private static final class Samples {
+        private final long[] values;
+        private int count;
+
+        Samples(int capacity) {
+            values = new long[capacity];
+        }
+
+        synchronized void add(long value) {
+            values[count++] = value;
+        }
+
+        synchronized void addAll(long[] latencies) {
+            System.arraycopy(latencies, 0, values, count, latencies.length);
+            count += latencies.length;
+        }
+
+        void sort() {
+            Arrays.sort(values, 0, count);
+        }
+
+        double millis(double percentile) {
+            if (count == 0) {
+                return Double.NaN;
+            }
+            int index = (int) Math.ceil(percentile * count) - 1;
+            return values[Math.max(0, index)] / 1e6;
+        }
+    }
+}
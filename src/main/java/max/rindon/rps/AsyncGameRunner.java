@@ -0,0 +1,87 @@
+package max.rindon.rps;
+
+import max.rindon.rps.ai.Strategy;
+import max.rindon.rps.domain.Game;
+import max.rindon.rps.ui.AsyncIO;
+import max.rindon.rps.ui.UI;
+
+import java.util.ArrayDeque;
+import java.util.Queue;
+import java.util.concurrent.Executor;
+
+/**
+ * Counterpart of {@link GameRunner} driven by input events instead of a blocking read loop,
+ * so that a single thread can run many games.
+ * <p> It never blocks: while the game is still computing the next AI move ahead (see {@link Game#speculate}),
+ * input is held back and handled once the move is in, back on the input thread.
+ */
+public class AsyncGameRunner {
+    private final AsyncIO io;
+    private final Game game;
+    private final GameSession session;
+    private final Executor inputThread;
+    private final Queue<String> pending = new ArrayDeque<>(); // input held back until the AI move is in
+    private boolean waiting; // whether we wait for the AI move
+
+    public AsyncGameRunner(AsyncIO io, Strategy aiStrategy) {
+        this(io, new Game(aiStrategy), Runnable::run);
+    }
+
+    /**
+     * @param inputThread runs tasks on the thread input comes from, to resume handling input there
+     */
+    public AsyncGameRunner(AsyncIO io, Game game, Executor inputThread) {
+        this.io = io;
+        this.game = game;
+        this.session = new GameSession(io, game);
+        this.inputThread = inputThread;
+    }
+
+    public void start() {
+        session.start();
+        io.write(UI.MOVE_PROMPT_MESSAGE);
+        io.flush();
+    }
+
+    /**
+     * Handle a line of player input, now or once the AI move is in.
+     * @param playerInput command or move
+     */
+    public void onInput(String playerInput) {
+        if (session.isFinished()) {
+            return;
+        }
+        pending.add(playerInput);
+        handlePending();
+    }
+
+    /**
+     * @return whether input is held back until the AI move is in
+     */
+    public boolean isWaiting() {
+        return waiting;
+    }
+
+    private void handlePending() {
+        while (!waiting && !pending.isEmpty() && !session.isFinished()) {
+            if (!game.isAiMoveReady()) {
+                waiting = true;
+                game.whenAiMoveReady().thenRun(() -> inputThread.execute(this::resume));
+                return;
+            }
+            session.handle(pending.poll());
+            if (session.isFinished()) {
+                pending.clear();
+                io.close();
+            } else {
+                io.write(UI.MOVE_PROMPT_MESSAGE);
+                io.flush();
+            }
+        }
+    }
+
+    private void resume() {
+        waiting = false;
+        handlePending();
+    }
+}
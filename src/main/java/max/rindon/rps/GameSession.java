@@ -0,0 +1,99 @@
+package max.rindon.rps;
+
+import max.rindon.rps.ai.PopulationModel;
+import max.rindon.rps.ai.Strategy;
+import max.rindon.rps.domain.Game;
+import max.rindon.rps.domain.Move;
+import max.rindon.rps.metrics.Metrics;
+import max.rindon.rps.ui.Command;
+import max.rindon.rps.ui.Output;
+import max.rindon.rps.ui.UI;
+
+import java.util.Optional;
+
+/**
+ * Handles player input for a single game, one line at a time, and writes the replies.
+ * <p> It doesn't read input by itself, so the same command handling can be driven
+ * by a console loop ({@link GameRunner}) as well as by network front ends.
+ */
+public class GameSession {
+    private final Output out;
+    private final Game game;
+    private final Metrics metrics;
+    private boolean finished;
+
+    public GameSession(Output out, Strategy aiStrategy) {
+        this(out, new Game(aiStrategy));
+    }
+
+    public GameSession(Output out, Game game) {
+        this(out, game, Metrics.global(), PopulationModel.global());
+    }
+
+    /**
+     * @param metrics metrics to track the game in and to show on request
+     * @param population model of all players to feed the player's moves into
+     */
+    public GameSession(Output out, Game game, Metrics metrics, PopulationModel population) {
+        this.out = out;
+        this.game = game;
+        this.metrics = metrics;
+        metrics.track(game);
+        population.track(game);
+    }
+
+    public void start() {
+        out.write(UI.WELCOME_MESSAGE);
+        out.write(UI.HELP_MESSAGE);
+    }
+
+    /**
+     * Handle a line of player input.
+     * @param playerInput command or move
+     */
+    public void handle(String playerInput) {
+        // check for command
+        Command command = UI.parseCommand(playerInput).orElse(Command.PLAY); // if we didn't recognize any command - proceed to playing
+
+        if (command == Command.QUIT) {
+            out.write(UI.renderStatistics(game.getStatistics()));
+            finished = true;
+            return;
+        } else if (command == Command.HELP) {
+            out.write(UI.HELP_MESSAGE);
+            return;
+        } else if (command == Command.STATS) {
+            out.write(UI.renderStatistics(game.getStatistics()));
+            return;
+        } else if (command == Command.METRICS) {
+            out.write(UI.renderMetrics(metrics));
+            return;
+        }
+
+        if (playerInput.length() > 1) { // a batch of moves gets a single compact reply
+            Optional<Move[]> moves = UI.parseMoves(playerInput);
+            if (moves.isPresent()) {
+                out.write(UI.renderBatch(game.playRounds(moves.get())));
+                return;
+            }
+        }
+
+        Optional<Move> move = UI.parseMove(playerInput);
+        if (move.isPresent()) {
+            out.write(UI.renderRoundBytes(game.playRound(move.get()))); // pre-rendered, no encoding needed
+        } else {
+            out.write(UI.renderParseMoveError(playerInput));
+        }
+    }
+
+    /**
+     * @return whether the player has quit
+     */
+    public boolean isFinished() {
+        return finished;
+    }
+
+    public Game getGame() {
+        return game;
+    }
+}
@@ -1,22 +1,59 @@
 package max.rindon.rps;
 
+import max.rindon.rps.ai.LearningStrategy;
+import max.rindon.rps.ai.ModelSnapshots;
 import max.rindon.rps.ai.Strategies;
 import max.rindon.rps.ai.Strategy;
+import max.rindon.rps.domain.Game;
+import max.rindon.rps.metrics.Metrics;
+import max.rindon.rps.persistence.RoundLog;
+import max.rindon.rps.persistence.RoundLogReader;
 import max.rindon.rps.ui.ConsoleIO;
 
+import java.io.BufferedOutputStream;
+import java.io.FileDescriptor;
+import java.io.FileOutputStream;
+import java.io.IOException;
 import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.Scanner;
 
 public class Main {
 
-    public static void main(String[] args) {
-        Strategy aiStrategy = Strategies.markovChain(Strategies.random());
+    /**
+     * The AI model starts from the prior in the {@value ModelSnapshots#PRIOR_PROPERTY} system property, if any.
+     * @param args optional file to keep the game history in; if it exists, the game is resumed from it.
+     *             The AI model is kept next to it, so that it doesn't have to learn the whole history again.
+     */
+    public static void main(String[] args) throws IOException {
+        LearningStrategy model = ModelSnapshots.withConfiguredPrior(() -> Strategies.markovChain(Strategies.random())).get();
+        Strategy aiStrategy = Metrics.global().timed("markovChain", model);
+        Game game = new Game(aiStrategy);
 
-        try (Scanner sc = new Scanner(System.in); PrintStream ps = System.out) {
+        Path historyFile = args.length > 0 ? Paths.get(args[0]) : null;
+        Path modelFile = historyFile != null ? Paths.get(historyFile + ".model") : null;
+        if (historyFile != null && Files.exists(historyFile)) {
+            RoundLogReader.resume(historyFile, game);
+            if (Files.exists(modelFile)) {
+                ModelSnapshots.load(model, modelFile);
+            }
+        }
+
+        // the console flushes before reading input, there is no need to flush every line
+        try (Scanner sc = new Scanner(System.in);
+             PrintStream ps = new PrintStream(new BufferedOutputStream(new FileOutputStream(FileDescriptor.out)), false);
+             RoundLog log = historyFile != null ? new RoundLog(historyFile, 1, false) : null) {
+            if (log != null) {
+                game.addRoundListener(log);
+            }
             ConsoleIO io = new ConsoleIO(sc, ps);
-            GameRunner gm = new GameRunner(io, aiStrategy);
+            GameRunner gm = new GameRunner(io, game);
             gm.run();
         }
+        if (modelFile != null) {
+            ModelSnapshots.save(model, modelFile);
+        }
     }
 }
-
@@ -0,0 +1,121 @@
+package max.rindon.rps.ai;
+
+import max.rindon.rps.domain.Game;
+import max.rindon.rps.domain.Move;
+
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Strategy answering within a latency budget: the primary strategy makes the move on an executor thread,
+ * and if it doesn't answer within the budget, a cheap fallback strategy makes it instead.
+ * <p> A late primary move is not interrupted (strategies may not survive it half way through an update),
+ * it is left to finish and thrown away. Until it finishes the fallback makes all the moves,
+ * so there is never more than one primary move in flight and the primary strategy is never called concurrently.
+ * It may see a longer history than it was called with, so the history must be safe to read while it grows,
+ * like the one {@link Game} gives.
+ * <p> A move computed ahead by a speculating game (see {@link Game#speculate}) is already off the player's way,
+ * so the primary strategy makes it right on the calling thread, without handing it off.
+ * <p> Moves and fallbacks are counted to tell how often the primary strategy misses its budget.
+ * The counts may be shared by many strategies, e.g. all the games of a server, see {@link Counts}.
+ * @see Strategies#withBudget(Strategy, Strategy, long, TimeUnit, ExecutorService, Counts)
+ */
+public final class BudgetedStrategy implements Strategy {
+
+    private final Strategy primary;
+    private final Strategy fallback;
+    private final long budgetNanos;
+    private final ExecutorService executor;
+    private final Counts counts;
+    private Future<Move> inFlight; // primary move which missed its budget, null if there is none
+
+    BudgetedStrategy(Strategy primary, Strategy fallback, long budget, TimeUnit unit, ExecutorService executor,
+                     Counts counts) {
+        if (budget < 0) {
+            throw new IllegalArgumentException("Budget should not be negative: " + budget);
+        }
+        this.primary = primary;
+        this.fallback = fallback;
+        this.budgetNanos = unit.toNanos(budget);
+        this.executor = executor;
+        this.counts = counts;
+    }
+
+    @Override
+    public Move makeMove(List<Move> history) {
+        counts.moves.increment();
+        if (inFlight != null && !inFlight.isDone()) {
+            return fallBack(history);
+        }
+        inFlight = null;
+        if (Game.isComputingAhead()) {
+            return primary.makeMove(history);
+        }
+        Future<Move> move = executor.submit(() -> primary.makeMove(history));
+        try {
+            return move.get(budgetNanos, TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            inFlight = move;
+            return fallBack(history);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            inFlight = move;
+            return fallBack(history);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Strategy failed to make a move", e.getCause());
+        }
+    }
+
+    /**
+     * @return number of moves made, counting the ones of the strategies sharing the counts
+     */
+    public long getMoves() {
+        return counts.getMoves();
+    }
+
+    /**
+     * @return number of moves made by the fallback strategy, counting the ones of the strategies sharing the counts
+     */
+    public long getFallbacks() {
+        return counts.getFallbacks();
+    }
+
+    /**
+     * @return counts of the moves of this strategy, and of the others sharing them
+     */
+    public Counts getCounts() {
+        return counts;
+    }
+
+    private Move fallBack(List<Move> history) {
+        counts.fallbacks.increment();
+        return fallback.makeMove(history);
+    }
+
+    /**
+     * Moves made by budgeted strategies, updated concurrently by all strategies sharing the counts.
+     */
+    public static final class Counts {
+        private final LongAdder moves = new LongAdder();
+        private final LongAdder fallbacks = new LongAdder();
+
+        /**
+         * @return number of moves made
+         */
+        public long getMoves() {
+            return moves.sum();
+        }
+
+        /**
+         * @return number of moves made by the fallback strategy
+         */
+        public long getFallbacks() {
+            return fallbacks.sum();
+        }
+    }
+}
@@ -0,0 +1,221 @@
+package max.rindon.rps.ai;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * Counts of the moves following each context of a fixed length.
+ * <p> A context is a sequence of {@code order} symbols encoded as a number in base {@code radix}.
+ * If all possible contexts fit into {@code maxContexts}, the counts are kept in a primitive array indexed by the context.
+ * Otherwise we use an open-addressed hash table with room for {@code maxContexts} contexts;
+ * once it is full, new contexts are not learned any more, so the memory used is bounded either way.
+ * The hash table starts small and doubles as contexts come, keeping the load factor at most 1/2,
+ * so that short games don't pay for the room long ones may need.
+ */
+final class ContextTable {
+
+    static final int MOVES = 3; // number of counters per context
+
+    /**
+     * Most contexts a table can remember, so that the counters of a full hash table still fit into an array.
+     */
+    static final int MAX_CONTEXTS = 1 << 28;
+
+    private static final long EMPTY = -1;
+    private static final int INITIAL_CAPACITY = 16;
+
+    private long[] keys; // null when the table is dense
+    private int[] counts;
+    private final int maxSize;
+    private int size;
+
+    ContextTable(int order, int radix, int maxContexts) {
+        long contexts = 1;
+        for (int i = 0; i < order && contexts <= maxContexts; i++) {
+            contexts *= radix;
+        }
+        if (contexts <= maxContexts) {
+            this.keys = null;
+            this.counts = new int[(int) contexts * MOVES];
+            this.maxSize = (int) contexts;
+        } else {
+            // grows up to the smallest power of two at least twice maxContexts, which MAX_CONTEXTS keeps in range
+            this.keys = new long[INITIAL_CAPACITY];
+            Arrays.fill(keys, EMPTY);
+            this.counts = new int[keys.length * MOVES];
+            this.maxSize = maxContexts;
+        }
+    }
+
+    /**
+     * @param context encoded context
+     * @return offset of the context counters in {@link #count(int, int)}, or -1 if the context was never seen
+     */
+    int offset(long context) {
+        if (keys == null) {
+            return (int) context * MOVES;
+        }
+        int mask = keys.length - 1;
+        for (int slot = hash(context) & mask; ; slot = (slot + 1) & mask) {
+            if (keys[slot] == context) {
+                return slot * MOVES;
+            } else if (keys[slot] == EMPTY) {
+                return -1;
+            }
+        }
+    }
+
+    /**
+     * Count the move played after the context.
+     * @param context encoded context
+     * @param move ordinal of the move played
+     */
+    void increment(long context, int move) {
+        add(context, move, 1);
+    }
+
+    private void add(long context, int move, int count) {
+        if (keys == null) {
+            counts[(int) context * MOVES + move] += count;
+            return;
+        }
+        int mask = keys.length - 1;
+        for (int slot = hash(context) & mask; ; slot = (slot + 1) & mask) {
+            if (keys[slot] == context) {
+                counts[slot * MOVES + move] += count;
+                return;
+            } else if (keys[slot] == EMPTY) {
+                if (size == maxSize) {
+                    return;
+                }
+                if (2 * (size + 1) > keys.length) {
+                    grow();
+                    add(context, move, count);
+                    return;
+                }
+                keys[slot] = context;
+                counts[slot * MOVES + move] += count;
+                size++;
+                return;
+            }
+        }
+    }
+
+    private void grow() {
+        long[] oldKeys = keys;
+        int[] oldCounts = counts;
+        keys = new long[2 * oldKeys.length];
+        Arrays.fill(keys, EMPTY);
+        counts = new int[keys.length * MOVES];
+        int mask = keys.length - 1;
+        for (int old = 0; old < oldKeys.length; old++) {
+            if (oldKeys[old] != EMPTY) {
+                int slot = hash(oldKeys[old]) & mask;
+                while (keys[slot] != EMPTY) {
+                    slot = (slot + 1) & mask;
+                }
+                keys[slot] = oldKeys[old];
+                System.arraycopy(oldCounts, old * MOVES, counts, slot * MOVES, MOVES);
+            }
+        }
+    }
+
+    int count(int offset, int move) {
+        return counts[offset + move];
+    }
+
+    /**
+     * @param offset offset of the context counters
+     * @return ordinal of the single most frequent move after the context, or -1 if there is none
+     */
+    int mostFrequent(int offset) {
+        int best = -1;
+        int bestCount = 0;
+        boolean tie = false;
+        for (int move = 0; move < MOVES; move++) {
+            int count = counts[offset + move];
+            if (count > bestCount) {
+                best = move;
+                bestCount = count;
+                tie = false;
+            } else if (count == bestCount) {
+                tie = true;
+            }
+        }
+        return tie ? -1 : best;
+    }
+
+    void clear() {
+        Arrays.fill(counts, 0);
+        if (keys != null) {
+            Arrays.fill(keys, EMPTY);
+        }
+        size = 0;
+    }
+
+    /**
+     * Write the counts of the contexts seen so far.
+     */
+    void save(DataOutput out) throws IOException {
+        int slots = counts.length / MOVES;
+        int used = 0;
+        for (int slot = 0; slot < slots; slot++) {
+            used += isUsed(slot) ? 1 : 0;
+        }
+        out.writeInt(used);
+        for (int slot = 0; slot < slots; slot++) {
+            if (isUsed(slot)) {
+                out.writeLong(keys == null ? slot : keys[slot]);
+                for (int move = 0; move < MOVES; move++) {
+                    out.writeInt(counts[slot * MOVES + move]);
+                }
+            }
+        }
+    }
+
+    /**
+     * Replace the counts with the ones written by {@link #save(DataOutput)}, possibly by a table of another size.
+     * Contexts which don't fit are dropped, like the ones seen when the table is full.
+     */
+    void load(DataInput in) throws IOException {
+        clear();
+        int used = in.readInt();
+        if (used < 0) {
+            throw new IOException("Corrupted context table");
+        }
+        for (int i = 0; i < used; i++) {
+            long context = in.readLong();
+            if (context < 0 || (keys == null && context >= maxSize)) {
+                throw new IOException("Context doesn't fit the table: " + context);
+            }
+            for (int move = 0; move < MOVES; move++) {
+                int count = in.readInt();
+                if (count < 0) {
+                    throw new IOException("Corrupted context table");
+                }
+                if (count > 0) {
+                    add(context, move, count);
+                }
+            }
+        }
+    }
+
+    private boolean isUsed(int slot) {
+        if (keys != null) {
+            return keys[slot] != EMPTY;
+        }
+        for (int move = 0; move < MOVES; move++) {
+            if (counts[slot * MOVES + move] > 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static int hash(long context) {
+        long h = context * 0x9E3779B97F4A7C15L; // Fibonacci hashing
+        return (int) (h ^ (h >>> 32));
+    }
+}
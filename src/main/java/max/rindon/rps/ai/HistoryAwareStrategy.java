@@ -0,0 +1,42 @@
+package max.rindon.rps.ai;
+
+import max.rindon.rps.domain.GameHistory;
+import max.rindon.rps.domain.Move;
+import max.rindon.rps.domain.Round;
+
+/**
+ * Strategy seeing the whole game: both sides' moves and the outcomes, not only the opponent's moves.
+ * <p> Besides being asked for a move, the strategy is told about every round played,
+ * so that it can update its model in constant time instead of scanning the history.
+ * Rounds added to resume a saved game are not told about, so a strategy relying on the callback
+ * should check that it has seen as many rounds as the history holds.
+ * @see #adapt(Strategy)
+ */
+@FunctionalInterface
+public interface HistoryAwareStrategy {
+
+    /**
+     * @param history read-only live view of the game so far
+     * @return move to make
+     */
+    Move makeMove(GameHistory history);
+
+    /**
+     * Called once the round is played, before any round listener of the game.
+     * @param round round played
+     */
+    default void onRoundPlayed(Round round) {
+    }
+
+    /**
+     * @param strategy strategy looking at the opponent's moves only
+     * @return the same strategy, given the opponent's moves of the history (which are not copied);
+     * a strategy which is history aware as well is returned as it is, so that it is told about rounds
+     */
+    static HistoryAwareStrategy adapt(Strategy strategy) {
+        if (strategy instanceof HistoryAwareStrategy) {
+            return (HistoryAwareStrategy) strategy;
+        }
+        return history -> strategy.makeMove(history.getPlayerMoves());
+    }
+}
@@ -0,0 +1,125 @@
+package max.rindon.rps.ai;
+
+import max.rindon.rps.domain.Move;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Base class for strategies keeping a model of the opponent which is updated as the history grows.
+ * <p> {@link max.rindon.rps.domain.Game} gives the strategy an append-only history each turn,
+ * so instead of rebuilding the model from the whole history we feed it only the moves played since the previous call.
+ * If the given history doesn't continue the one we have already seen (e.g. the strategy is reused for another game),
+ * the model is reset and rebuilt from the given history.
+ * <p> A snapshot is a header, the kind of strategy, the position in the history and the model written by the subclass.
+ */
+abstract class IncrementalStrategy implements LearningStrategy {
+
+    private static final int SNAPSHOT_HEADER = ('R' << 24) | ('P' << 16) | ('M' << 8) | 1; // format version 1
+    private static final Move[] MOVES = Move.values();
+
+    private int seen; // number of history moves already fed into the model
+    private Move last; // last move fed into the model
+
+    @Override
+    public final Move makeMove(List<Move> moves) {
+        int size = moves.size();
+        if (size < seen || (seen > 0 && moves.get(seen - 1) != last)) {
+            reset();
+            seen = 0;
+        }
+        for (; seen < size; seen++) {
+            last = moves.get(seen);
+            update(last);
+        }
+        return predict(moves);
+    }
+
+    @Override
+    public final void save(DataOutput out) throws IOException {
+        out.writeInt(SNAPSHOT_HEADER);
+        out.writeUTF(getClass().getSimpleName());
+        out.writeInt(seen);
+        out.writeByte(last == null ? -1 : last.ordinal());
+        saveModel(out);
+    }
+
+    @Override
+    public final void load(DataInput in) throws IOException {
+        if (in.readInt() != SNAPSHOT_HEADER) {
+            throw new IOException("Not a model snapshot");
+        }
+        String kind = in.readUTF();
+        if (!kind.equals(getClass().getSimpleName())) {
+            throw new IOException("Snapshot of " + kind + " can't be loaded into " + getClass().getSimpleName());
+        }
+        int position = in.readInt();
+        int lastMove = in.readByte();
+        if (position < 0 || lastMove < -1 || lastMove >= MOVES.length || (position > 0) != (lastMove >= 0)) {
+            throw new IOException("Corrupted model snapshot");
+        }
+        try {
+            loadModel(in);
+        } catch (IOException | RuntimeException e) {
+            reset(); // don't keep half of a model
+            rewind();
+            throw e;
+        }
+        seen = position;
+        last = lastMove >= 0 ? MOVES[lastMove] : null;
+    }
+
+    @Override
+    public final void loadPrior(DataInput in) throws IOException {
+        load(in);
+        rewind();
+    }
+
+    /**
+     * @return number of history moves fed into the model, i.e. during {@link #update(Move)} the index of the move fed
+     */
+    final int position() {
+        return seen;
+    }
+
+    /**
+     * Feed the next opponent move into the model.
+     * @param move opponent move
+     */
+    abstract void update(Move move);
+
+    /**
+     * Make a move using the model, which is up to date with given history.
+     * @param moves opponent moves
+     * @return move to make
+     */
+    abstract Move predict(List<Move> moves);
+
+    /**
+     * Forget everything learned so far.
+     */
+    abstract void reset();
+
+    /**
+     * Write the model, the way {@link #loadModel(DataInput)} reads it.
+     */
+    abstract void saveModel(DataOutput out) throws IOException;
+
+    /**
+     * Replace the model with the one written by {@link #saveModel(DataOutput)}.
+     * @throws IOException if the model is corrupted or doesn't fit the parameters of this strategy
+     */
+    abstract void loadModel(DataInput in) throws IOException;
+
+    /**
+     * Forget the position in the history but keep what was learned,
+     * so that the model can go on learning from another history, from its beginning.
+     * Subclasses remembering the last moves should forget them as well.
+     */
+    void rewind() {
+        seen = 0;
+        last = null;
+    }
+}
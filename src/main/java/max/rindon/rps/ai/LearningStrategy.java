@@ -0,0 +1,37 @@
+package max.rindon.rps.ai;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * Strategy learning a model of its opponent as the game goes on.
+ * <p> The model can be saved as a compact snapshot and loaded back, so that a resumed game
+ * doesn't have to learn again from its whole history, or so that new games start from a model
+ * learned from other players (a prior) instead of from nothing.
+ * The state of random sources is not part of the model.
+ * @see ModelSnapshots
+ */
+public interface LearningStrategy extends Strategy {
+
+    /**
+     * Write the learned model, along with the position in the history it is up to date with.
+     * @param out output to write to
+     */
+    void save(DataOutput out) throws IOException;
+
+    /**
+     * Replace the learned model with a saved one, to continue the game it was saved from.
+     * If the next history doesn't continue the saved one, the model is rebuilt from the history as usual.
+     * @param in input to read a snapshot of the same kind of strategy from
+     * @throws IOException if the snapshot is corrupted or was saved by another kind of strategy
+     */
+    void load(DataInput in) throws IOException;
+
+    /**
+     * Replace the learned model with a saved one, and learn the next history on top of it from its beginning.
+     * @param in input to read a snapshot of the same kind of strategy from
+     * @throws IOException if the snapshot is corrupted or was saved by another kind of strategy
+     */
+    void loadPrior(DataInput in) throws IOException;
+}
@@ -0,0 +1,93 @@
+package max.rindon.rps.ai;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.function.Supplier;
+
+/**
+ * Saving and loading snapshots of {@link LearningStrategy} models to and from files.
+ */
+public final class ModelSnapshots {
+
+    /**
+     * System property with the path of a snapshot to start new games from, see {@link #withConfiguredPrior(Supplier)}.
+     */
+    public static final String PRIOR_PROPERTY = "rps.prior";
+
+    private ModelSnapshots() {}
+
+    /**
+     * Save the model of the strategy. The file is replaced at once, so it never holds half of a snapshot.
+     * @param strategy strategy to save the model of
+     * @param file file to save to
+     */
+    public static void save(LearningStrategy strategy, Path file) throws IOException {
+        Path absolute = file.toAbsolutePath();
+        Path temp = Files.createTempFile(absolute.getParent(), absolute.getFileName().toString(), ".tmp");
+        try {
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+                strategy.save(out);
+            }
+            Files.move(temp, absolute, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    /**
+     * Load the model of the strategy, to continue the game it was saved from.
+     * @see LearningStrategy#load(java.io.DataInput)
+     */
+    public static void load(LearningStrategy strategy, Path file) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            strategy.load(in);
+        }
+    }
+
+    /**
+     * Start every strategy from the same prior model. The file is read once, when this method is called.
+     * <p> New strategies load the prior as a strategy saves it once it has loaded the file, which is often more compact,
+     * e.g. the Markov chain keeps a prior as transition counts instead of the moves it was learned from.
+     * @param strategies supplier of new strategies
+     * @param prior file with a snapshot of the model
+     * @return supplier of strategies which have loaded the prior
+     * @see LearningStrategy#loadPrior(java.io.DataInput)
+     */
+    public static <S extends LearningStrategy> Supplier<S> withPrior(Supplier<S> strategies, Path prior) throws IOException {
+        S template = strategies.get();
+        template.loadPrior(new DataInputStream(new ByteArrayInputStream(Files.readAllBytes(prior)))); // fail early if it doesn't fit
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        template.save(new DataOutputStream(bytes));
+        byte[] snapshot = bytes.toByteArray();
+        return () -> {
+            S strategy = strategies.get();
+            try {
+                strategy.loadPrior(new DataInputStream(new ByteArrayInputStream(snapshot)));
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            return strategy;
+        };
+    }
+
+    /**
+     * Same as {@link #withPrior(Supplier, Path)} with the file in the {@value #PRIOR_PROPERTY} system property,
+     * if it is set.
+     * @param strategies supplier of new strategies
+     * @return supplier of strategies which have loaded the prior, or the given supplier if there is no prior
+     */
+    public static <S extends LearningStrategy> Supplier<S> withConfiguredPrior(Supplier<S> strategies) throws IOException {
+        String prior = System.getProperty(PRIOR_PROPERTY);
+        return prior != null ? withPrior(strategies, Paths.get(prior)) : strategies;
+    }
+}
@@ -0,0 +1,143 @@
+package max.rindon.rps.ai;
+
+import max.rindon.rps.domain.Game;
+import max.rindon.rps.domain.Move;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Move statistics of all players, shared by all games and updated concurrently as they are played.
+ * <p> For every context of up to {@code maxOrder} previous moves of a player we count which move the player made next,
+ * and separately how players open their games. Counters are {@link LongAdder}s, which spread contended
+ * updates over several cells, so games never wait for each other and don't even share a cache line most of the time.
+ * Reading a count sums the cells, so it may miss updates in flight, which doesn't matter for statistics.
+ * <p> Contexts are encoded in base 3, the most recent move being the lowest digit.
+ * @see Strategies#population(PopulationModel, double, Strategy)
+ */
+public final class PopulationModel {
+
+    /**
+     * Longest context the model can count, 3^6 contexts already take over 2000 counters.
+     */
+    public static final int MAX_ORDER = 6;
+
+    /**
+     * Order of the {@link #global()} model.
+     */
+    public static final int GLOBAL_ORDER = 3;
+
+    private static final Move[] MOVES = Move.values();
+
+    private final LongAdder[][] counts; // counts[k][context * 3 + move] for contexts of k moves
+    private final LongAdder[] openings; // first moves of the games, by ordinal
+
+    /**
+     * @param maxOrder length of the longest context to count, from 0 (move frequencies only) to {@value #MAX_ORDER}
+     */
+    public PopulationModel(int maxOrder) {
+        if (maxOrder < 0 || maxOrder > MAX_ORDER) {
+            throw new IllegalArgumentException("Order should be between 0 and " + MAX_ORDER + ": " + maxOrder);
+        }
+        this.counts = new LongAdder[maxOrder + 1][];
+        int contexts = 1;
+        for (int k = 0; k <= maxOrder; k++) {
+            counts[k] = adders(contexts * MOVES.length);
+            contexts *= MOVES.length;
+        }
+        this.openings = adders(MOVES.length);
+    }
+
+    /**
+     * @return process wide model, which every {@link max.rindon.rps.GameSession} feeds, i.e. the console and all servers
+     */
+    public static PopulationModel global() {
+        return Global.INSTANCE;
+    }
+
+    public int getMaxOrder() {
+        return counts.length - 1;
+    }
+
+    /**
+     * Feed the moves of the player of the game into the model from now on, as rounds are played.
+     * Not needed for games played by {@link Strategies#population(PopulationModel, double, Strategy)}
+     * over this model, which feeds it itself.
+     * @param game game to learn from
+     */
+    public void track(Game game) {
+        Feeder feeder = new Feeder(game.getRoundCount() == 0);
+        game.addRoundListener(round -> feeder.accept(round.playerMove));
+    }
+
+    /**
+     * @param order length of the context
+     * @param context encoded context of the given length
+     * @param move move made after the context
+     * @return number of times players made the move after the context
+     */
+    public long count(int order, int context, Move move) {
+        return counts[order][context * MOVES.length + move.ordinal()].sum();
+    }
+
+    /**
+     * @param move opening move
+     * @return number of games opened with the move
+     */
+    public long openings(Move move) {
+        return openings[move.ordinal()].sum();
+    }
+
+    void add(int order, int context, int move) {
+        counts[order][context * MOVES.length + move].increment();
+    }
+
+    void addOpening(int move) {
+        openings[move].increment();
+    }
+
+    private static final class Global {
+        static final PopulationModel INSTANCE = new PopulationModel(GLOBAL_ORDER);
+    }
+
+    private static LongAdder[] adders(int size) {
+        LongAdder[] adders = new LongAdder[size];
+        for (int i = 0; i < size; i++) {
+            adders[i] = new LongAdder();
+        }
+        return adders;
+    }
+
+    /**
+     * Feeds the moves of a single player, keeping the context of the last moves. Not thread-safe, one per game.
+     */
+    final class Feeder {
+        private final int modulus; // 3 ^ maxOrder
+        private boolean opening; // whether the next move opens the game
+        private int context; // last maxOrder moves
+        private int length; // number of moves in context
+
+        Feeder(boolean opening) {
+            int modulus = 1;
+            for (int k = 1; k < counts.length; k++) {
+                modulus *= MOVES.length;
+            }
+            this.modulus = modulus;
+            this.opening = opening;
+        }
+
+        void accept(Move move) {
+            int next = move.ordinal();
+            if (opening) {
+                addOpening(next);
+                opening = false;
+            }
+            int contextModulus = 1;
+            for (int k = 0; k <= length; k++) {
+                add(k, context % contextModulus, next);
+                contextModulus *= MOVES.length;
+            }
+            context = (context * MOVES.length + next) % modulus;
+            length = Math.min(length + 1, counts.length - 1);
+        }
+    }
+}
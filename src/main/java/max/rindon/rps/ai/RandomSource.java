@@ -0,0 +1,16 @@
+package max.rindon.rps.ai;
+
+/**
+ * Source of random numbers for strategies.
+ * Works on primitives, so drawing a number doesn't box anything.
+ * @see RandomSources
+ */
+@FunctionalInterface
+public interface RandomSource {
+
+    /**
+     * @param bound upper bound (exclusive), must be positive
+     * @return random number from 0 (inclusive) to bound (exclusive)
+     */
+    int nextInt(int bound);
+}
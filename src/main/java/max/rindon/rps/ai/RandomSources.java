@@ -0,0 +1,77 @@
+package max.rindon.rps.ai;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Static factories for random sources.
+ * <p> Seeded sources are not thread-safe and are meant to be used by a single game:
+ * give each game its own source, e.g. seeded with {@link #seed(long, long)}, to make games reproducible.
+ * {@link #threadLocal()} may be shared by any number of concurrent games without contention.
+ */
+public class RandomSources {
+
+    private RandomSources() {}
+
+    private static final RandomSource THREAD_LOCAL = bound -> ThreadLocalRandom.current().nextInt(bound);
+
+    /**
+     * @return source drawing from the current thread's {@link ThreadLocalRandom}
+     */
+    public static RandomSource threadLocal() {
+        return THREAD_LOCAL;
+    }
+
+    /**
+     * @param seed seed
+     * @return source backed by a {@link SplittableRandom}
+     */
+    public static RandomSource splittable(long seed) {
+        return new SplittableRandom(seed)::nextInt;
+    }
+
+    /**
+     * Very fast generator, good enough for games but not for anything security related.
+     * @param seed seed
+     * @return xorshift64* source
+     */
+    public static RandomSource xorShift(long seed) {
+        return new XorShift(seed);
+    }
+
+    /**
+     * Derive a well mixed seed for a game, e.g. from a server wide seed and the game number.
+     * @param masterSeed seed all game seeds are derived from
+     * @param game game number
+     * @return seed of the game
+     */
+    public static long seed(long masterSeed, long game) {
+        return mix(masterSeed + mix(game + 0x9E3779B97F4A7C15L));
+    }
+
+    private static long mix(long z) { // SplitMix64 finalizer
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    private static final class XorShift implements RandomSource {
+        private long state;
+
+        private XorShift(long seed) {
+            this.state = mix(seed) | 1; // state must not be zero
+        }
+
+        @Override
+        public int nextInt(int bound) {
+            if (bound <= 0) {
+                throw new IllegalArgumentException("Bound must be positive: " + bound);
+            }
+            state ^= state >>> 12;
+            state ^= state << 25;
+            state ^= state >>> 27;
+            long random = (state * 0x2545F4914F6CDD1DL) >>> 32; // 32 random bits
+            return (int) ((random * bound) >>> 32); // multiply instead of modulo to map to [0, bound)
+        }
+    }
+}
@@ -1,13 +1,20 @@
 package max.rindon.rps.ai;
 
+import max.rindon.rps.domain.GameHistory;
 import max.rindon.rps.domain.Move;
-import max.rindon.rps.util.Streams;
+import max.rindon.rps.domain.Outcome;
+import max.rindon.rps.domain.Round;
+import max.rindon.rps.domain.Rules;
 
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
 import java.util.*;
-import java.util.function.Function;
-import java.util.stream.Collectors;
-
-import static java.util.function.Function.identity;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Static factories and some combinators for strategies.
@@ -20,7 +27,8 @@ public class Strategies {
 
     private Strategies() { }
 
-    private static final Random RANDOM = new Random();
+    private static final RandomSource RANDOM = RandomSources.threadLocal();
+    private static final Move[] MOVES = Move.values();
 
     // some dumb strategies for testing
     public static final Strategy ALWAYS_ROCK = always(Move.ROCK);
@@ -37,12 +45,26 @@ public class Strategies {
         return (noMatterWhat -> move);
     }
 
+    /**
+     * Make given moves in order, starting over when they run out.
+     * Useful to replay a recorded opponent or to play a synthetic one.
+     *
+     * @param moves moves to make
+     * @return Strategy making given moves in order
+     */
+    public static Strategy sequence(List<Move> moves) {
+        if (moves.isEmpty()) {
+            throw new IllegalArgumentException("Sequence of moves should not be empty");
+        }
+        return (history -> moves.get(history.size() % moves.size()));
+    }
+
     /**
      * Make a random move. It is impossible to gain an advantage over a truly random opponent.
-     * @param gen Random number generator
+     * @param gen random number generator
      * @return Strategy that makes random moves.
      */
-    public static Strategy random(Function<Integer, Integer> gen) {
+    public static Strategy random(RandomSource gen) {
         return (ignored -> randomMove(gen));
     }
 
@@ -51,7 +73,7 @@ public class Strategies {
      * @return Strategy that makes random moves.
      */
     public static Strategy random() {
-        return random(RANDOM::nextInt);
+        return random(RANDOM);
     }
 
     private static Strategy echo() {
@@ -83,34 +105,53 @@ public class Strategies {
         return firstThenOther(onFirst, lastLost());
     }
 
-    private static Strategy beatMostFrequent() {
-        return (moves -> moves.stream()
-                .collect(Collectors.groupingBy(identity(), Collectors.counting()))
-                .entrySet().stream()
-                .max(Comparator.comparing(Map.Entry::getValue))
-                .map(Map.Entry::getKey)
-                .map(Move::losesTo)
-                .orElseThrow(() -> new IllegalStateException("Unable to find most frequent move."))); // should never happen
-    }
-
     /**
      * Beats most frequent opponent move
      *
      * @param onFirst strategy to use on first turn
      * @return strategy that returns a move that beats most frequent opponent move
      */
-    public static Strategy beatMostFrequent(Strategy onFirst) {
-        return firstThenOther(onFirst, beatMostFrequent());
+    public static LearningStrategy beatMostFrequent(Strategy onFirst) {
+        return new FrequencyStrategy(onFirst, 0, 1.0);
     }
 
+    /**
+     * Beats most frequent opponent move among the last ones.
+     * Adapts to opponents changing their habits.
+     *
+     * @param onFirst strategy to use on first turn
+     * @param window number of last opponent moves to take into account
+     * @return strategy that returns a move that beats most frequent of the last opponent moves
+     */
+    public static LearningStrategy beatMostFrequent(Strategy onFirst, int window) {
+        if (window < 1) {
+            throw new IllegalArgumentException("Window should be positive: " + window);
+        }
+        return new FrequencyStrategy(onFirst, window, 1.0);
+    }
+
+    /**
+     * Beats most frequent opponent move, giving older moves exponentially less weight.
+     * Adapts to opponents changing their habits.
+     *
+     * @param onFirst strategy to use on first turn
+     * @param decay weight of a move relative to the following one, from 0 (exclusive) to 1 (all moves count the same)
+     * @return strategy that returns a move that beats the opponent move with the highest decayed frequency
+     */
+    public static LearningStrategy beatMostFrequentDecayed(Strategy onFirst, double decay) {
+        if (!(decay > 0 && decay <= 1)) {
+            throw new IllegalArgumentException("Decay should be in (0, 1]: " + decay);
+        }
+        return new FrequencyStrategy(onFirst, 0, decay);
+    }
 
     /**
      * @see MarkovChainStrategy
      * @param onFirst strategy to use on first turn
      * @return simple Markov chain strategy
      */
-    public static Strategy markovChain(Strategy onFirst, Function<Integer, Integer> gen) {
-        return firstThenOther(onFirst, new MarkovChainStrategy(gen));
+    public static LearningStrategy markovChain(Strategy onFirst, RandomSource gen) {
+        return new MarkovChainStrategy(onFirst, gen);
     }
 
     /**
@@ -118,8 +159,50 @@ public class Strategies {
      * @param onFirst strategy to use on first turn
      * @return simple Markov chain strategy
      */
-    public static Strategy markovChain(Strategy onFirst) {
-        return firstThenOther(onFirst, new MarkovChainStrategy(RANDOM::nextInt));
+    public static LearningStrategy markovChain(Strategy onFirst) {
+        return new MarkovChainStrategy(onFirst, RANDOM);
+    }
+
+    /**
+     * @see VariableOrderMarkovStrategy
+     * @param maxOrder length of the longest context to learn, from 1 to 32
+     * @param maxContexts maximum number of contexts to remember for each context length, up to 2^28
+     * @param onUnknown strategy to use when we can't make a prediction (e.g. on first turn)
+     * @return variable order Markov chain strategy
+     */
+    public static LearningStrategy variableOrderMarkov(int maxOrder, int maxContexts, Strategy onUnknown) {
+        return new VariableOrderMarkovStrategy(maxOrder, maxContexts, onUnknown);
+    }
+
+    /**
+     * @see VariableOrderMarkovStrategy
+     * @param maxOrder length of the longest context to learn, from 1 to 32
+     * @param onUnknown strategy to use when we can't make a prediction (e.g. on first turn)
+     * @return variable order Markov chain strategy
+     */
+    public static LearningStrategy variableOrderMarkov(int maxOrder, Strategy onUnknown) {
+        return variableOrderMarkov(maxOrder, VariableOrderMarkovStrategy.DEFAULT_MAX_CONTEXTS, onUnknown);
+    }
+
+    /**
+     * @see JointMarkovStrategy
+     * @param maxOrder length of the longest context to learn, in rounds, from 1 to 18
+     * @param maxContexts maximum number of contexts to remember for each context length, up to 2^28
+     * @param onUnknown strategy to use when we can't make a prediction (e.g. on first turn)
+     * @return variable order Markov chain strategy over both players' moves
+     */
+    public static HistoryAwareStrategy jointMarkov(int maxOrder, int maxContexts, Strategy onUnknown) {
+        return new JointMarkovStrategy(maxOrder, maxContexts, onUnknown);
+    }
+
+    /**
+     * @see JointMarkovStrategy
+     * @param maxOrder length of the longest context to learn, in rounds, from 1 to 18
+     * @param onUnknown strategy to use when we can't make a prediction (e.g. on first turn)
+     * @return variable order Markov chain strategy over both players' moves
+     */
+    public static HistoryAwareStrategy jointMarkov(int maxOrder, Strategy onUnknown) {
+        return jointMarkov(maxOrder, VariableOrderMarkovStrategy.DEFAULT_MAX_CONTEXTS, onUnknown);
     }
 
     /**
@@ -129,8 +212,8 @@ public class Strategies {
      * @param gen random number generator
      * @return Strategy making a random choice of which strategy to use each turn
      */
-    public static Strategy toss(Strategy first, Strategy second, Function<Integer, Integer> gen) {
-        int rand = gen.apply(2);
+    public static Strategy toss(Strategy first, Strategy second, RandomSource gen) {
+        int rand = gen.nextInt(2);
         return (moves -> {
             if (rand == 0) {
                 return first.makeMove(moves);
@@ -147,7 +230,7 @@ public class Strategies {
      * @return Strategy making a random choice of which strategy to use each turn
      */
     public static Strategy toss(Strategy first, Strategy second) {
-        return toss(first, second, RANDOM::nextInt);
+        return toss(first, second, RANDOM);
     }
 
     /**
@@ -166,6 +249,80 @@ public class Strategies {
         });
     }
 
+    /**
+     * @see PopulationStrategy
+     * @param population statistics of all players, which the moves of this strategy's opponent are added to
+     * @param priorStrength number of the opponent's own moves the population statistics weigh as much as
+     * @param onUnknown strategy to use when neither the opponent nor the population tell anything
+     * @return strategy blending population statistics with the opponent's own habits
+     */
+    public static LearningStrategy population(PopulationModel population, double priorStrength, Strategy onUnknown) {
+        if (!(priorStrength >= 0)) {
+            throw new IllegalArgumentException("Prior strength should not be negative: " + priorStrength);
+        }
+        return new PopulationStrategy(population, priorStrength, onUnknown);
+    }
+
+    /**
+     * Play the move of the strategy which would have scored best so far.
+     * @see EnsembleStrategy
+     * @param strategies strategies to choose from
+     * @param decay weight of a past score relative to the following one, from 0 (exclusive) to 1 (all rounds count the same)
+     * @return strategy making the move of the best scoring strategy
+     */
+    public static LearningStrategy ensemble(List<Strategy> strategies, double decay) {
+        return new EnsembleStrategy(strategies, decay, 0, RANDOM, null);
+    }
+
+    /**
+     * Play the move of a strategy picked at random, favouring strategies which would have scored better so far.
+     * @see EnsembleStrategy
+     * @param strategies strategies to choose from
+     * @param decay weight of a past score relative to the following one, from 0 (exclusive) to 1 (all rounds count the same)
+     * @param temperature softmax temperature, the higher it is the more random the choice; 0 always picks the best strategy
+     * @param gen random number generator
+     * @return strategy making the move of a strategy chosen by softmax of scores
+     */
+    public static LearningStrategy ensemble(List<Strategy> strategies, double decay, double temperature, RandomSource gen) {
+        return new EnsembleStrategy(strategies, decay, temperature, gen, null);
+    }
+
+    /**
+     * Same as {@link #ensemble(List, double, double, RandomSource)}, but strategies make their moves concurrently.
+     * Worth it for many or expensive strategies. Strategies must be safe to call from executor threads.
+     * @param executor executor to run strategies on
+     */
+    public static LearningStrategy ensemble(List<Strategy> strategies, double decay, double temperature,
+                                            RandomSource gen, ExecutorService executor) {
+        return new EnsembleStrategy(strategies, decay, temperature, gen, executor);
+    }
+
+    /**
+     * Bound the time to make a move, falling back to a cheap strategy when the primary one is too slow.
+     * @see BudgetedStrategy
+     * @param primary strategy to use when it answers within the budget
+     * @param fallback cheap strategy to use when it doesn't, e.g. {@link #random()}
+     * @param budget time the primary strategy has to make a move
+     * @param unit unit of the budget
+     * @param executor executor to run the primary strategy on
+     * @return strategy making the primary move if it comes within the budget, and the fallback move otherwise
+     */
+    public static BudgetedStrategy withBudget(Strategy primary, Strategy fallback, long budget, TimeUnit unit,
+                                              ExecutorService executor) {
+        return withBudget(primary, fallback, budget, unit, executor, new BudgetedStrategy.Counts());
+    }
+
+    /**
+     * Same as {@link #withBudget(Strategy, Strategy, long, TimeUnit, ExecutorService)},
+     * counting moves and fallbacks along with other strategies, e.g. the ones reported by
+     * {@link max.rindon.rps.metrics.Metrics#budgetCounts(String)}.
+     * @param counts counts to add the moves of the strategy to
+     */
+    public static BudgetedStrategy withBudget(Strategy primary, Strategy fallback, long budget, TimeUnit unit,
+                                              ExecutorService executor, BudgetedStrategy.Counts counts) {
+        return new BudgetedStrategy(primary, fallback, budget, unit, executor, counts);
+    }
+
     /**
      * Use first strategy if this is first turn. Otherwise use the other strategy
      * This may be useful when other strategy requires history
@@ -183,10 +340,109 @@ public class Strategies {
         });
     }
 
+    /**
+     * Beats the opponent move with the highest frequency.
+     * <p> Keeps running counters for each move, updated in O(1) per turn.
+     * The counters may be limited to a sliding window of the last moves (kept in a ring buffer),
+     * or decayed, so that each move weighs {@code decay} times less than the following one.
+     * Ties are resolved in favour of the move declared first.
+     */
+    private static class FrequencyStrategy extends IncrementalStrategy {
+
+        private final Strategy onFirst;
+        private final double decay;
+        private final byte[] window; // ring buffer of the last moves, null if all moves count
+        private final double[] counts = new double[MOVES.length];
+        private int next; // position in window for the next move
+        private boolean full; // whether the window is filled up
+
+        private FrequencyStrategy(Strategy onFirst, int window, double decay) {
+            this.onFirst = onFirst;
+            this.decay = decay;
+            this.window = window > 0 ? new byte[window] : null;
+        }
+
+        @Override
+        void update(Move move) {
+            if (decay < 1) {
+                for (int i = 0; i < counts.length; i++) {
+                    counts[i] *= decay;
+                }
+            }
+            if (window != null) {
+                if (full) {
+                    counts[window[next]]--;
+                }
+                window[next] = (byte) move.ordinal();
+                next = (next + 1) % window.length;
+                full |= next == 0;
+            }
+            counts[move.ordinal()]++;
+        }
+
+        @Override
+        Move predict(List<Move> moves) {
+            if (moves.isEmpty() && counts[0] + counts[1] + counts[2] == 0) { // a prior may know how players open
+                return onFirst.makeMove(moves);
+            }
+            int mostFrequent = 0;
+            for (int i = 1; i < counts.length; i++) {
+                if (counts[i] > counts[mostFrequent]) {
+                    mostFrequent = i;
+                }
+            }
+            return MOVES[mostFrequent].losesTo();
+        }
+
+        @Override
+        void reset() {
+            Arrays.fill(counts, 0);
+            next = 0;
+            full = false;
+        }
+
+        @Override
+        void saveModel(DataOutput out) throws IOException {
+            out.writeInt(window != null ? window.length : 0);
+            out.writeDouble(decay);
+            for (double count : counts) {
+                out.writeDouble(count);
+            }
+            if (window != null) {
+                out.writeInt(next);
+                out.writeBoolean(full);
+                out.write(window);
+            }
+        }
+
+        @Override
+        void loadModel(DataInput in) throws IOException {
+            int windowLength = in.readInt();
+            double savedDecay = in.readDouble();
+            if (windowLength != (window != null ? window.length : 0) || savedDecay != decay) {
+                throw new IOException("Snapshot of a frequency strategy with another window or decay");
+            }
+            for (int i = 0; i < counts.length; i++) {
+                counts[i] = in.readDouble();
+            }
+            if (window != null) {
+                next = in.readInt();
+                full = in.readBoolean();
+                in.readFully(window);
+                if (next < 0 || next >= window.length) {
+                    throw new IOException("Corrupted frequency strategy snapshot");
+                }
+                for (byte move : window) {
+                    checkMove(move);
+                }
+            }
+        }
+    }
+
     /**
      * Simple strategy based on Markov Chains.
      * <p> Our main weapon in fighting humans ;)
-     * <p> We are building a map (Move -> [Move]) where value is the list of moves our
+     * <p> We are keeping a map (Move -> [Move]) where value is the list of moves our
      * opponent played after the given move.
      * E.g. if the history of our opponent's moves was [R, R, P, S, R],
      * our map is:
@@ -198,54 +454,698 @@ public class Strategies {
      * Then we look at the opponent's last turn and select a random value from the corresponding list (e.g. make a weighted guess).
      * This is the predicted next move of our opponent and we make the move that beats it.
      * If we don't have a history for some move - just make random move.
+     * <p> The map is updated incrementally: each new opponent move is appended to the list of its predecessor,
+     * so a turn costs O(1) no matter how long the game is.
+     * The lists are kept as compact byte arrays of move ordinals (their lengths are the transition counts)
+     * to pick exactly the same element for the same random number as a list built from the whole history.
+     * <p> A prior model, learned from other histories, is kept as transition counts only, so that it costs
+     * the same to load however many moves it was learned from. Random numbers below the prior total
+     * pick a move by the cumulative prior counts, the ones above it pick from the lists of this game.
      */
-    private static class MarkovChainStrategy implements Strategy {
+    private static class MarkovChainStrategy extends IncrementalStrategy {
+
+        private static final int INITIAL_CAPACITY = 16;
+        private static final int READ_CHUNK = 1 << 16; // lists are read in chunks, so a corrupted length can't exhaust memory
 
-        private final Function<Integer, Integer> gen; // random number generator
+        private final Strategy onFirst;
+        private final RandomSource gen; // random number generator
+        private final int[][] prior = new int[MOVES.length][MOVES.length]; // prior[previous][next] transition counts
+        private final int[] priorTotals = new int[MOVES.length];
+        private final byte[][] successors = new byte[MOVES.length][];
+        private final int[] counts = new int[MOVES.length];
+        private Move previous;
 
-        private MarkovChainStrategy(Function<Integer, Integer> gen) {
+        private MarkovChainStrategy(Strategy onFirst, RandomSource gen) {
+            this.onFirst = onFirst;
             this.gen = gen;
+            reset();
         }
 
         @Override
-        public Move makeMove(List<Move> moves) {
-            EnumMap<Move, List<Move>> markovChain = buildMarkovChain(moves);
-            Move last = getLast(moves); // this should be safe
-            List<Move> possibleMoves = markovChain.get(last);
-            Move predictedMove = getRandomElement(possibleMoves, gen).orElse(randomMove(gen));
-            return predictedMove.losesTo();
+        void update(Move move) {
+            if (previous != null) {
+                int row = previous.ordinal();
+                if (counts[row] == successors[row].length) {
+                    successors[row] = Arrays.copyOf(successors[row], 2 * counts[row]);
+                }
+                successors[row][counts[row]++] = (byte) move.ordinal();
+            }
+            previous = move;
         }
 
+        @Override
+        Move predict(List<Move> moves) {
+            if (moves.isEmpty()) {
+                return onFirst.makeMove(moves);
+            }
+            int row = getLast(moves).ordinal();
+            int total = priorTotals[row] + counts[row];
+            Move predictedMove = total > 0 ? pick(row, gen.nextInt(total)) : null;
+            Move randomMove = randomMove(gen); // always drawn to consume random numbers in the same order as before
+            return (predictedMove != null ? predictedMove : randomMove).losesTo();
+        }
 
-        private EnumMap<Move, List<Move>> buildMarkovChain(List<Move> moves) {
-            EnumMap<Move, List<Move>> markovChain = emptyMarkovChain();
-            Streams.sliding(moves, 2)
-                    .forEach(pair -> {
-                        Move fst = pair.get(0);
-                        Move snd = pair.get(1);
-                        markovChain.get(fst).add(snd);
-                    });
-            return markovChain;
+        private Move pick(int row, int index) {
+            if (index >= priorTotals[row]) {
+                return MOVES[successors[row][index - priorTotals[row]]];
+            }
+            int next = 0;
+            for (int remaining = index; remaining >= prior[row][next]; next++) {
+                remaining -= prior[row][next];
+            }
+            return MOVES[next];
+        }
+
+        @Override
+        void reset() {
+            for (int i = 0; i < successors.length; i++) {
+                Arrays.fill(prior[i], 0);
+                priorTotals[i] = 0;
+                successors[i] = new byte[INITIAL_CAPACITY];
+                counts[i] = 0;
+            }
+            previous = null;
+        }
+
+        @Override
+        void saveModel(DataOutput out) throws IOException {
+            out.writeByte(previous != null ? previous.ordinal() : -1);
+            for (int row = 0; row < successors.length; row++) {
+                for (int count : prior[row]) {
+                    out.writeInt(count);
+                }
+                out.writeInt(counts[row]);
+                out.write(successors[row], 0, counts[row]);
+            }
+        }
+
+        @Override
+        void loadModel(DataInput in) throws IOException {
+            int last = in.readByte();
+            if (last >= 0) {
+                checkMove(last);
+            }
+            previous = last >= 0 ? MOVES[last] : null;
+            for (int row = 0; row < successors.length; row++) {
+                long priorTotal = 0;
+                for (int next = 0; next < MOVES.length; next++) {
+                    prior[row][next] = in.readInt();
+                    if (prior[row][next] < 0) {
+                        throw new IOException("Corrupted Markov chain snapshot");
+                    }
+                    priorTotal += prior[row][next];
+                }
+                int count = in.readInt();
+                if (count < 0 || priorTotal + count > Integer.MAX_VALUE) {
+                    throw new IOException("Corrupted Markov chain snapshot");
+                }
+                priorTotals[row] = (int) priorTotal;
+                byte[] list = new byte[Math.max(INITIAL_CAPACITY, Math.min(count, READ_CHUNK))];
+                for (int read = 0; read < count; ) {
+                    if (read == list.length) {
+                        list = Arrays.copyOf(list, (int) Math.min(count, 2L * list.length));
+                    }
+                    int chunk = Math.min(count, list.length) - read;
+                    in.readFully(list, read, chunk);
+                    read += chunk;
+                }
+                for (int i = 0; i < count; i++) {
+                    checkMove(list[i]);
+                }
+                successors[row] = list;
+                counts[row] = count;
+            }
+        }
+
+        /**
+         * What was learned becomes the prior: the lists are folded into the prior counts.
+         */
+        @Override
+        void rewind() {
+            for (int row = 0; row < successors.length; row++) {
+                if ((long) priorTotals[row] + counts[row] > Integer.MAX_VALUE) {
+                    throw new IllegalStateException("Markov chain prior is too large");
+                }
+            }
+            super.rewind();
+            for (int row = 0; row < successors.length; row++) {
+                for (int i = 0; i < counts[row]; i++) {
+                    prior[row][successors[row][i]]++;
+                }
+                priorTotals[row] += counts[row];
+                successors[row] = new byte[INITIAL_CAPACITY];
+                counts[row] = 0;
+            }
+            previous = null;
+        }
+    }
+
+    /**
+     * Markov chain strategy conditioning on the last k opponent moves, with back-off in the spirit of PPM.
+     * <p> For every context length from 1 to maxOrder we count which moves the opponent played after each context.
+     * To predict the next move we take the longest context matching the end of the history
+     * which has a single most frequent follow-up, backing off to shorter contexts
+     * (down to the empty one, i.e. plain move frequencies) when a context was never seen or is ambiguous.
+     * We make the move that beats the prediction.
+     * <p> Contexts are encoded in base 3 and counted in {@link ContextTable}s, which bound the memory used.
+     * The tables are updated incrementally, so a turn costs O(maxOrder) no matter how long the game is.
+     */
+    private static class VariableOrderMarkovStrategy extends IncrementalStrategy {
+
+        static final int MAX_ORDER = 32; // longest context whose encoding fits into a long
+        static final int DEFAULT_MAX_CONTEXTS = 1 << 16;
+
+        private final Strategy onUnknown;
+        private final ContextTable[] tables; // tables[k] counts moves following contexts of length k
+        private final long[] modulus; // modulus[k] = 3^k
+        private long context; // last maxOrder moves, the most recent one is the lowest digit
+        private int length; // number of moves in context
+
+        private VariableOrderMarkovStrategy(int maxOrder, int maxContexts, Strategy onUnknown) {
+            if (maxOrder < 1 || maxOrder > MAX_ORDER) {
+                throw new IllegalArgumentException("Order should be between 1 and " + MAX_ORDER + ": " + maxOrder);
+            }
+            if (maxContexts < 1 || maxContexts > ContextTable.MAX_CONTEXTS) {
+                throw new IllegalArgumentException(
+                        "Number of contexts should be between 1 and " + ContextTable.MAX_CONTEXTS + ": " + maxContexts);
+            }
+            this.onUnknown = onUnknown;
+            this.tables = new ContextTable[maxOrder + 1];
+            this.modulus = new long[maxOrder + 1];
+            for (int k = 0; k <= maxOrder; k++) {
+                tables[k] = new ContextTable(k, MOVES.length, maxContexts);
+                modulus[k] = k == 0 ? 1 : modulus[k - 1] * MOVES.length;
+            }
+        }
+
+        @Override
+        void update(Move move) {
+            int next = move.ordinal();
+            for (int k = 0; k <= length; k++) {
+                tables[k].increment(context % modulus[k], next);
+            }
+            int maxOrder = tables.length - 1;
+            context = (context * MOVES.length + next) % modulus[maxOrder];
+            length = Math.min(length + 1, maxOrder);
         }
 
-        private EnumMap<Move, List<Move>> emptyMarkovChain() {
-            EnumMap<Move, List<Move>> result = new EnumMap<>(Move.class);
-            for (Move key : Move.values()) {
-                result.put(key, new ArrayList<>());
+        @Override
+        Move predict(List<Move> moves) {
+            for (int k = length; k >= 0; k--) {
+                int offset = tables[k].offset(context % modulus[k]);
+                int predicted = offset >= 0 ? tables[k].mostFrequent(offset) : -1;
+                if (predicted >= 0) {
+                    return MOVES[predicted].losesTo();
+                }
+            }
+            return onUnknown.makeMove(moves);
+        }
+
+        @Override
+        void reset() {
+            for (ContextTable table : tables) {
+                table.clear();
+            }
+            context = 0;
+            length = 0;
+        }
+
+        @Override
+        void saveModel(DataOutput out) throws IOException {
+            out.writeInt(tables.length - 1);
+            out.writeLong(context);
+            out.writeInt(length);
+            for (ContextTable table : tables) {
+                table.save(out);
+            }
+        }
+
+        @Override
+        void loadModel(DataInput in) throws IOException {
+            int maxOrder = in.readInt();
+            if (maxOrder != tables.length - 1) {
+                throw new IOException("Snapshot of a Markov chain of order " + maxOrder + " instead of " + (tables.length - 1));
+            }
+            context = in.readLong();
+            length = in.readInt();
+            if (context < 0 || context >= modulus[maxOrder] || length < 0 || length > maxOrder) {
+                throw new IOException("Corrupted variable order Markov chain snapshot");
+            }
+            for (ContextTable table : tables) {
+                table.load(in);
+            }
+        }
+
+        @Override
+        void rewind() {
+            super.rewind();
+            context = 0;
+            length = 0;
+        }
+    }
+
+    /**
+     * Variable order Markov chain over whole rounds instead of the opponent's moves only.
+     * <p> A context is the last rounds, both moves and so the outcome of each, which catches opponents reacting
+     * to our moves or to whether they won or lost. Otherwise it predicts like {@link VariableOrderMarkovStrategy},
+     * with rounds encoded in base 9 (see {@link Round#encode(Move, Move)}).
+     * <p> The tables learn each round from {@link #onRoundPlayed(Round)} in O(maxOrder). Rounds we weren't told about
+     * (e.g. of a resumed game) are caught up from the history on the next move, and if the history doesn't continue
+     * the rounds we have seen (e.g. the strategy is reused for another game), the model is rebuilt from it.
+     */
+    private static class JointMarkovStrategy implements HistoryAwareStrategy {
+
+        static final int MAX_ORDER = 18; // longest context which still fits into a long once the next round is shifted in
+        private static final int RADIX = Round.CODES;
+
+        private final Strategy onUnknown;
+        private final ContextTable[] tables; // tables[k] counts moves following contexts of k rounds
+        private final long[] modulus; // modulus[k] = 9^k
+        private long context; // last maxOrder rounds, the most recent one is the lowest digit
+        private int length; // number of rounds in context
+        private int seen; // number of rounds learned
+        private Round last; // last round learned
+
+        private JointMarkovStrategy(int maxOrder, int maxContexts, Strategy onUnknown) {
+            if (maxOrder < 1 || maxOrder > MAX_ORDER) {
+                throw new IllegalArgumentException("Order should be between 1 and " + MAX_ORDER + ": " + maxOrder);
+            }
+            if (maxContexts < 1 || maxContexts > ContextTable.MAX_CONTEXTS) {
+                throw new IllegalArgumentException(
+                        "Number of contexts should be between 1 and " + ContextTable.MAX_CONTEXTS + ": " + maxContexts);
+            }
+            this.onUnknown = onUnknown;
+            this.tables = new ContextTable[maxOrder + 1];
+            this.modulus = new long[maxOrder + 1];
+            for (int k = 0; k <= maxOrder; k++) {
+                tables[k] = new ContextTable(k, RADIX, maxContexts);
+                modulus[k] = k == 0 ? 1 : modulus[k - 1] * RADIX;
+            }
+        }
+
+        @Override
+        public Move makeMove(GameHistory history) {
+            List<Round> rounds = history.getRounds();
+            int size = rounds.size();
+            if (size < seen || (seen > 0 && rounds.get(seen - 1) != last)) {
+                reset();
+            }
+            for (int i = seen; i < size; i++) {
+                onRoundPlayed(rounds.get(i));
+            }
+            for (int k = length; k >= 0; k--) {
+                int offset = tables[k].offset(context % modulus[k]);
+                int predicted = offset >= 0 ? tables[k].mostFrequent(offset) : -1;
+                if (predicted >= 0) {
+                    return MOVES[predicted].losesTo();
+                }
+            }
+            return onUnknown.makeMove(history.getPlayerMoves());
+        }
+
+        @Override
+        public void onRoundPlayed(Round round) {
+            int next = round.playerMove.ordinal();
+            for (int k = 0; k <= length; k++) {
+                tables[k].increment(context % modulus[k], next);
+            }
+            int maxOrder = tables.length - 1;
+            context = (context * RADIX + round.code()) % modulus[maxOrder];
+            length = Math.min(length + 1, maxOrder);
+            seen++;
+            last = round;
+        }
+
+        private void reset() {
+            for (ContextTable table : tables) {
+                table.clear();
+            }
+            context = 0;
+            length = 0;
+            seen = 0;
+            last = null;
+        }
+    }
+
+    /**
+     * Predicts the opponent from the statistics of all players, shifting to the opponent's own habits
+     * as evidence about them accumulates.
+     * <p> Like {@link VariableOrderMarkovStrategy}, for every context of up to the population model order
+     * we count which moves the opponent played after it. The estimated chance of a move after the current context is
+     * {@code (own count + priorStrength * population share) / (own total + priorStrength)},
+     * i.e. the population statistics act as {@code priorStrength} moves already seen.
+     * We beat the most likely move of the longest context with a single most likely move, backing off to shorter ones.
+     * Before the first move we beat the most common opening of all players.
+     * <p> The opponent's moves are added to the population model as rounds are played, from {@link #onRoundPlayed(Round)},
+     * so that every game played with this strategy teaches all the others. Rounds replayed to resume a game,
+     * or learned again when the model is rebuilt, are not added again. The strategy must be played by a
+     * {@link max.rindon.rps.domain.Game} directly, not wrapped by another strategy, to be told about rounds.
+     * Games of a {@link max.rindon.rps.GameSession} already feed {@link PopulationModel#global()},
+     * so a strategy over the global model would count the moves of such games twice.
+     */
+    private static class PopulationStrategy extends IncrementalStrategy implements HistoryAwareStrategy {
+
+        private final PopulationModel population;
+        private final double priorStrength;
+        private final Strategy onUnknown;
+        private final int[][] counts; // counts[k][context * 3 + move] of the opponent's own moves
+        private final int[] modulus; // modulus[k] = 3^k
+        private final double[] estimates = new double[MOVES.length];
+        private int context; // last moves, the most recent one is the lowest digit
+        private int length; // number of moves in context
+
+        private PopulationStrategy(PopulationModel population, double priorStrength, Strategy onUnknown) {
+            this.population = population;
+            this.priorStrength = priorStrength;
+            this.onUnknown = onUnknown;
+            int maxOrder = population.getMaxOrder();
+            this.counts = new int[maxOrder + 1][];
+            this.modulus = new int[maxOrder + 1];
+            for (int k = 0; k <= maxOrder; k++) {
+                modulus[k] = k == 0 ? 1 : modulus[k - 1] * MOVES.length;
+                counts[k] = new int[modulus[k] * MOVES.length];
+            }
+        }
+
+        @Override
+        void update(Move move) {
+            int next = move.ordinal();
+            for (int k = 0; k <= length; k++) {
+                counts[k][context % modulus[k] * MOVES.length + next]++;
+            }
+            int maxOrder = counts.length - 1;
+            context = (context * MOVES.length + next) % modulus[maxOrder];
+            length = Math.min(length + 1, maxOrder);
+        }
+
+        @Override
+        public Move makeMove(GameHistory history) {
+            return makeMove(history.getPlayerMoves());
+        }
+
+        /**
+         * The round follows the history we were last asked to move for, whose moves are in the context,
+         * so its move is added to the population after the same contexts as {@link #update(Move)} counts it.
+         */
+        @Override
+        public void onRoundPlayed(Round round) {
+            int next = round.playerMove.ordinal();
+            if (position() == 0) {
+                population.addOpening(next);
+            }
+            for (int k = 0; k <= length; k++) {
+                population.add(k, context % modulus[k], next);
+            }
+        }
+
+        @Override
+        Move predict(List<Move> moves) {
+            if (moves.isEmpty()) {
+                for (Move move : MOVES) {
+                    estimates[move.ordinal()] = population.openings(move);
+                }
+                int predicted = mostLikely(estimates);
+                return predicted >= 0 ? MOVES[predicted].losesTo() : onUnknown.makeMove(moves);
+            }
+            for (int k = length; k >= 0; k--) {
+                int ctx = context % modulus[k];
+                long populationTotal = 0;
+                int ownTotal = 0;
+                for (Move move : MOVES) {
+                    populationTotal += population.count(k, ctx, move);
+                    ownTotal += counts[k][ctx * MOVES.length + move.ordinal()];
+                }
+                if (populationTotal + ownTotal == 0) {
+                    continue;
+                }
+                for (Move move : MOVES) {
+                    double share = populationTotal > 0 ? (double) population.count(k, ctx, move) / populationTotal : 0;
+                    estimates[move.ordinal()] = counts[k][ctx * MOVES.length + move.ordinal()] + priorStrength * share;
+                }
+                int predicted = mostLikely(estimates);
+                if (predicted >= 0) {
+                    return MOVES[predicted].losesTo();
+                }
+            }
+            return onUnknown.makeMove(moves);
+        }
+
+        @Override
+        void reset() {
+            for (int[] table : counts) {
+                Arrays.fill(table, 0);
+            }
+            context = 0;
+            length = 0;
+        }
+
+        /**
+         * Only the opponent's own counts, the population model is shared and not part of the snapshot.
+         */
+        @Override
+        void saveModel(DataOutput out) throws IOException {
+            out.writeInt(counts.length - 1);
+            out.writeInt(context);
+            out.writeInt(length);
+            for (int[] table : counts) {
+                for (int count : table) {
+                    out.writeInt(count);
+                }
+            }
+        }
+
+        @Override
+        void loadModel(DataInput in) throws IOException {
+            int maxOrder = in.readInt();
+            if (maxOrder != counts.length - 1) {
+                throw new IOException("Snapshot of a population strategy of order " + maxOrder + " instead of " + (counts.length - 1));
+            }
+            context = in.readInt();
+            length = in.readInt();
+            if (context < 0 || context >= modulus[maxOrder] || length < 0 || length > maxOrder) {
+                throw new IOException("Corrupted population strategy snapshot");
+            }
+            for (int[] table : counts) {
+                for (int i = 0; i < table.length; i++) {
+                    table[i] = in.readInt();
+                    if (table[i] < 0) {
+                        throw new IOException("Corrupted population strategy snapshot");
+                    }
+                }
+            }
+        }
+
+        @Override
+        void rewind() {
+            super.rewind();
+            context = 0;
+            length = 0;
+        }
+
+        // ordinal of the single most likely move, or -1 if there is none
+        private static int mostLikely(double[] estimates) {
+            int best = -1;
+            double bestEstimate = 0;
+            boolean tie = false;
+            for (int move = 0; move < estimates.length; move++) {
+                if (estimates[move] > bestEstimate) {
+                    best = move;
+                    bestEstimate = estimates[move];
+                    tie = false;
+                } else if (estimates[move] == bestEstimate) {
+                    tie = true;
+                }
+            }
+            return tie ? -1 : best;
+        }
+    }
+
+    /**
+     * Meta-strategy in the spirit of Iocaine Powder: every turn all strategies make their moves,
+     * and once the opponent moves, each strategy scores +1 if its move would have won, -1 if it would have lost
+     * and 0 for a draw. Past scores decay, so that we switch quickly when another strategy starts doing better.
+     * We play the move of the best scoring strategy, or sample a strategy by softmax of scores.
+     * <p> Scoring is incremental, a turn costs O(N) plus the cost of the strategies themselves.
+     */
+    private static class EnsembleStrategy extends IncrementalStrategy {
+
+        private static final int SAMPLE_BITS = 24;
+
+        private final Strategy[] strategies;
+        private final double decay;
+        private final double temperature;
+        private final RandomSource gen;
+        private final ExecutorService executor; // null to make moves sequentially
+        private final List<Callable<Move>> tasks;
+        private final double[] scores;
+        private final double[] weights;
+        private final Move[] moves; // moves of the strategies for the next opponent move
+        private int seen; // number of opponent moves fed so far
+        private int predicted = -1; // index of the opponent move the strategies made their moves for
+
+        private EnsembleStrategy(List<Strategy> strategies, double decay, double temperature, RandomSource gen,
+                                 ExecutorService executor) {
+            if (strategies.isEmpty()) {
+                throw new IllegalArgumentException("Ensemble needs at least one strategy");
+            }
+            if (!(decay > 0 && decay <= 1)) {
+                throw new IllegalArgumentException("Decay should be in (0, 1]: " + decay);
+            }
+            if (!(temperature >= 0)) {
+                throw new IllegalArgumentException("Temperature should not be negative: " + temperature);
+            }
+            this.strategies = strategies.toArray(new Strategy[0]);
+            this.decay = decay;
+            this.temperature = temperature;
+            this.gen = gen;
+            this.executor = executor;
+            this.tasks = new ArrayList<>();
+            this.scores = new double[this.strategies.length];
+            this.weights = new double[this.strategies.length];
+            this.moves = new Move[this.strategies.length];
+        }
+
+        @Override
+        void update(Move move) {
+            if (seen++ == predicted) {
+                for (int i = 0; i < scores.length; i++) {
+                    Outcome outcome = Rules.evaluate(moves[i], move);
+                    scores[i] = decay * scores[i] + (outcome == Outcome.WIN ? 1 : outcome == Outcome.LOSS ? -1 : 0);
+                }
+            }
+        }
+
+        @Override
+        Move predict(List<Move> history) {
+            makeMoves(history);
+            predicted = history.size();
+            return moves[temperature == 0 ? best() : sample()];
+        }
+
+        @Override
+        void reset() {
+            Arrays.fill(scores, 0);
+            seen = 0;
+            predicted = -1;
+        }
+
+        /**
+         * Scores, pending moves of the strategies, and then the models of the strategies which learn.
+         */
+        @Override
+        void saveModel(DataOutput out) throws IOException {
+            out.writeInt(strategies.length);
+            out.writeInt(seen);
+            out.writeInt(predicted);
+            for (int i = 0; i < strategies.length; i++) {
+                out.writeDouble(scores[i]);
+                out.writeByte(moves[i] != null ? moves[i].ordinal() : -1);
+            }
+            for (Strategy strategy : strategies) {
+                if (strategy instanceof LearningStrategy) {
+                    ((LearningStrategy) strategy).save(out);
+                }
+            }
+        }
+
+        @Override
+        void loadModel(DataInput in) throws IOException {
+            int count = in.readInt();
+            if (count != strategies.length) {
+                throw new IOException("Snapshot of an ensemble of " + count + " strategies instead of " + strategies.length);
+            }
+            seen = in.readInt();
+            predicted = in.readInt();
+            for (int i = 0; i < strategies.length; i++) {
+                scores[i] = in.readDouble();
+                int move = in.readByte();
+                if (move >= 0) {
+                    checkMove(move);
+                }
+                moves[i] = move >= 0 ? MOVES[move] : null;
+            }
+            if (predicted >= 0 && Arrays.asList(moves).contains(null)) {
+                throw new IOException("Corrupted ensemble snapshot");
+            }
+            for (Strategy strategy : strategies) {
+                if (strategy instanceof LearningStrategy) {
+                    ((LearningStrategy) strategy).load(in);
+                }
+            }
+        }
+
+        @Override
+        void rewind() {
+            super.rewind();
+            seen = 0;
+            predicted = -1;
+            for (Strategy strategy : strategies) {
+                if (strategy instanceof IncrementalStrategy) {
+                    ((IncrementalStrategy) strategy).rewind();
+                }
+            }
+        }
+
+        private void makeMoves(List<Move> history) {
+            if (executor == null) {
+                for (int i = 0; i < strategies.length; i++) {
+                    moves[i] = strategies[i].makeMove(history);
+                }
+                return;
+            }
+            tasks.clear();
+            for (Strategy strategy : strategies) {
+                tasks.add(() -> strategy.makeMove(history));
+            }
+            try {
+                List<Future<Move>> futures = executor.invokeAll(tasks);
+                for (int i = 0; i < moves.length; i++) {
+                    moves[i] = futures.get(i).get();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while waiting for strategies", e);
+            } catch (ExecutionException e) {
+                throw new IllegalStateException("Strategy failed to make a move", e.getCause());
+            }
+        }
+
+        private int best() {
+            int best = 0;
+            for (int i = 1; i < scores.length; i++) {
+                if (scores[i] > scores[best]) {
+                    best = i;
+                }
+            }
+            return best;
+        }
+
+        private int sample() {
+            double max = scores[best()];
+            double total = 0;
+            for (int i = 0; i < scores.length; i++) {
+                weights[i] = Math.exp((scores[i] - max) / temperature);
+                total += weights[i];
+            }
+            double point = total * gen.nextInt(1 << SAMPLE_BITS) / (1 << SAMPLE_BITS);
+            for (int i = 0; i < weights.length; i++) {
+                point -= weights[i];
+                if (point < 0) {
+                    return i;
+                }
             }
-            return result;
+            return weights.length - 1;
         }
     }
 
-    private static <T> Optional<T> getRandomElement(List<T> xs, Function<Integer, Integer> gen) {
-        if (xs.isEmpty()) {
-            return Optional.empty();
+    private static void checkMove(int ordinal) throws IOException {
+        if (ordinal < 0 || ordinal >= MOVES.length) {
+            throw new IOException("Corrupted snapshot, not a move: " + ordinal);
         }
-        return Optional.ofNullable(xs.get(gen.apply(xs.size())));
     }
 
-    private static Move randomMove(Function<Integer, Integer> gen) {
-        return Move.values()[gen.apply(Move.values().length)];
+    private static Move randomMove(RandomSource gen) {
+        return MOVES[gen.nextInt(MOVES.length)];
     }
 
     private static <T> T getLast(List<T> xs) {
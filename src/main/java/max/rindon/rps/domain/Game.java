@@ -1,50 +1,281 @@
 package max.rindon.rps.domain;
 
+import max.rindon.rps.ai.HistoryAwareStrategy;
 import max.rindon.rps.ai.Strategy;
 
 import java.util.*;
-import java.util.stream.Collectors;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
 
 public class Game {
 
-    private final Strategy aiStrategy;
-    private final List<Round> history;
-    private final EnumMap<Outcome, Integer> statistics;
+    private static final Outcome[] OUTCOMES = Outcome.values();
+    private static final ThreadLocal<Boolean> COMPUTING_AHEAD = new ThreadLocal<>();
+
+    private final HistoryAwareStrategy aiStrategy;
+    private final MoveHistory playerMoves;
+    private final MoveHistory aiMoves;
+    private final GameHistory history; // live read-only view given to the strategy
+    private final int[] statistics; // indexed by outcome ordinal
+    private final Map<Outcome, Integer> statisticsView;
+    private final List<RoundListener> listeners = new ArrayList<>();
+    private Executor speculationExecutor; // null unless speculating
+    private CompletableFuture<Move> speculation; // next AI move computed ahead, null if there is none
 
     public Game(Strategy aiStrategy) {
+        this(HistoryAwareStrategy.adapt(aiStrategy));
+    }
+
+    private Game(HistoryAwareStrategy aiStrategy) {
         this.aiStrategy = aiStrategy;
-        this.history = new ArrayList<>();
-        this.statistics = initStatistics();
+        this.playerMoves = new MoveHistory();
+        this.aiMoves = new MoveHistory();
+        this.history = new GameHistory(playerMoves, aiMoves);
+        this.statistics = new int[OUTCOMES.length];
+        this.statisticsView = new StatisticsView();
+    }
+
+    /**
+     * A factory rather than a constructor, so that lambdas given to {@link #Game(Strategy)} stay unambiguous.
+     * @param aiStrategy strategy seeing both players' moves and told about every round
+     * @return new game played by the strategy
+     */
+    public static Game historyAware(HistoryAwareStrategy aiStrategy) {
+        return new Game(aiStrategy);
     }
 
     public Round playRound(Move playerMove) {
-        // Strategies could (and probably should) use full history,
-        // but all our strategies use only opponent moves.
-        List<Move> pastPlayerMoves = getPlayerMoves();
-
-        Move aiMove = aiStrategy.makeMove(pastPlayerMoves);
-        Outcome outcome = Rules.evaluate(playerMove, aiMove);
-        Round round = new Round(playerMove, aiMove, outcome);
-        history.add(round);
-        statistics.computeIfPresent(outcome, (k, v) -> v + 1);
+        Round round = addRound(playerMove, nextAiMove());
+        statistics[round.outcome.ordinal()]++;
+        roundPlayed(round);
+        speculate();
+        return round;
+    }
+
+    /**
+     * Play several rounds at once, e.g. for bots submitting whole move sequences.
+     * The AI strategy and the listeners are told about every round as usual,
+     * but statistics are updated only once the whole batch is played.
+     * @param playerMoves player moves, in order
+     * @return codes of the rounds played, see {@link Round#code()}
+     */
+    public byte[] playRounds(Move... playerMoves) {
+        byte[] codes = new byte[playerMoves.length];
+        int[] counts = new int[Round.CODES];
+        for (int i = 0; i < playerMoves.length; i++) {
+            Round round = addRound(playerMoves[i], nextAiMove());
+            codes[i] = (byte) round.code();
+            counts[codes[i]]++;
+            roundPlayed(round);
+        }
+        for (int code = 0; code < Round.CODES; code++) {
+            statistics[Round.of(code).outcome.ordinal()] += counts[code];
+        }
+        speculate();
+        return codes;
+    }
+
+    /**
+     * Add a round played before, e.g. to resume a saved game.
+     * Neither the AI strategy nor the listeners are told about it.
+     * When speculating, the next AI move is computed ahead again only once the game is played on,
+     * so that replaying many rounds doesn't call the strategy for each of them.
+     * @param playerMove player move
+     * @param aiMove AI move
+     * @return round played
+     */
+    public Round replayRound(Move playerMove, Move aiMove) {
+        discardSpeculation(); // it doesn't follow the history any more
+        Round round = addRound(playerMove, aiMove);
+        statistics[round.outcome.ordinal()]++;
         return round;
     }
 
-    private List<Move> getPlayerMoves() {
-        return Collections.unmodifiableList(history.stream()
-                    .map(r -> r.playerMove)
-                    .collect(Collectors.toList()));
+    public void addRoundListener(RoundListener listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * Compute every AI move ahead, as soon as the previous round is played, instead of when the player moves.
+     * The AI move only depends on the rounds played before, so it can be computed while the player thinks
+     * or the network is idle, and playing a round comes down to evaluating it.
+     * <p> The strategy is then called on the executor, one call at a time, and is told about rounds on the game thread
+     * once its move is in. It must not be used outside of the game until {@link #stopSpeculating()}.
+     * <p> Playing a round waits for the move if it isn't in yet, so threads which must not block,
+     * like event loops, should play only once {@link #isAiMoveReady()}, see {@link #whenAiMoveReady()}.
+     * <p> Only the move is computed ahead. Learning the round in advance for each of the three possible player moves
+     * would need strategies able to fork their models.
+     * @param executor executor to compute AI moves on
+     */
+    public void speculate(Executor executor) {
+        discardSpeculation();
+        speculationExecutor = executor;
+        speculate();
+    }
+
+    /**
+     * Starts computing the next AI move ahead if it isn't yet, e.g. after replayed rounds.
+     * @return whether the next round can be played without waiting for the AI move being computed ahead
+     */
+    public boolean isAiMoveReady() {
+        resumeSpeculation();
+        return speculation == null || speculation.isDone();
+    }
+
+    /**
+     * Lets event loops play the round once the AI move is in, instead of waiting for it.
+     * Starts computing the next AI move ahead if it isn't yet, e.g. after replayed rounds.
+     * @return stage completing (normally, even if the strategy failed) once {@link #isAiMoveReady()}
+     */
+    public CompletionStage<Void> whenAiMoveReady() {
+        resumeSpeculation();
+        CompletableFuture<Move> next = speculation;
+        return next == null ? CompletableFuture.completedFuture(null) : next.handle((move, failure) -> null);
+    }
+
+    /**
+     * Lets strategies tell a move nobody waits for yet from one the player is waiting for,
+     * e.g. to skip measures bounding the latency of the move.
+     * @return whether the current thread is computing an AI move ahead, see {@link #speculate(Executor)}
+     */
+    public static boolean isComputingAhead() {
+        return COMPUTING_AHEAD.get() != null;
+    }
+
+    /**
+     * Compute AI moves when the player moves again, waiting for the move being computed ahead if there is one.
+     */
+    public void stopSpeculating() {
+        discardSpeculation();
+        speculationExecutor = null;
+    }
+
+    private void speculate() {
+        if (speculationExecutor != null) {
+            try {
+                speculation = CompletableFuture.supplyAsync(this::computeAhead, speculationExecutor);
+            } catch (RejectedExecutionException e) {
+                speculation = null; // e.g. the executor is shut down with the server, the move is computed when needed
+            }
+        }
+    }
+
+    private Move computeAhead() {
+        COMPUTING_AHEAD.set(Boolean.TRUE);
+        try {
+            return aiStrategy.makeMove(history);
+        } finally {
+            COMPUTING_AHEAD.remove();
+        }
+    }
+
+    private void resumeSpeculation() {
+        if (speculation == null) {
+            speculate();
+        }
+    }
+
+    private void discardSpeculation() {
+        if (speculation != null) {
+            speculation.handle((move, failure) -> null).join();
+            speculation = null;
+        }
+    }
+
+    private Move nextAiMove() {
+        CompletableFuture<Move> next = speculation;
+        if (next == null) {
+            return aiStrategy.makeMove(history);
+        }
+        speculation = null;
+        try {
+            return next.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            } else if (e.getCause() instanceof Error) {
+                throw (Error) e.getCause();
+            }
+            throw e;
+        }
     }
 
-    private EnumMap<Outcome, Integer> initStatistics() {
-        EnumMap<Outcome, Integer> result = new EnumMap<>(Outcome.class);
-        for (Outcome key : Outcome.values()) {
-            result.put(key, 0);
+    private void roundPlayed(Round round) {
+        aiStrategy.onRoundPlayed(round);
+        for (RoundListener listener : listeners) {
+            listener.onRoundPlayed(round);
         }
-        return result;
     }
 
+    private Round addRound(Move playerMove, Move aiMove) {
+        Round round = Round.of(playerMove, aiMove); // shared instance, no allocation
+        playerMoves.append(playerMove);
+        aiMoves.append(aiMove);
+        return round;
+    }
+
+    public int getRoundCount() {
+        return playerMoves.size();
+    }
+
+    /**
+     * @return live read-only view of the rounds played so far
+     */
+    public GameHistory getHistory() {
+        return history;
+    }
+
+    /**
+     * @return live read-only view of the number of rounds per outcome
+     */
     public Map<Outcome, Integer> getStatistics() {
-        return Collections.unmodifiableMap(statistics);
+        return statisticsView;
+    }
+
+    private final class StatisticsView extends AbstractMap<Outcome, Integer> {
+
+        @Override
+        public Integer get(Object key) {
+            return key instanceof Outcome ? statistics[((Outcome) key).ordinal()] : null;
+        }
+
+        @Override
+        public boolean containsKey(Object key) {
+            return key instanceof Outcome;
+        }
+
+        @Override
+        public Set<Entry<Outcome, Integer>> entrySet() {
+            return new AbstractSet<Entry<Outcome, Integer>>() {
+                @Override
+                public Iterator<Entry<Outcome, Integer>> iterator() {
+                    return new Iterator<Entry<Outcome, Integer>>() {
+                        private int next;
+
+                        @Override
+                        public boolean hasNext() {
+                            return next < OUTCOMES.length;
+                        }
+
+                        @Override
+                        public Entry<Outcome, Integer> next() {
+                            if (!hasNext()) {
+                                throw new NoSuchElementException();
+                            }
+                            Outcome outcome = OUTCOMES[next++];
+                            return new SimpleImmutableEntry<>(outcome, statistics[outcome.ordinal()]);
+                        }
+                    };
+                }
+
+                @Override
+                public int size() {
+                    return OUTCOMES.length;
+                }
+            };
+        }
     }
 }
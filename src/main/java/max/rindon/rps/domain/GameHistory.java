@@ -0,0 +1,68 @@
+package max.rindon.rps.domain;
+
+import java.util.AbstractList;
+import java.util.Collections;
+import java.util.List;
+import java.util.RandomAccess;
+
+/**
+ * Read-only live view of the rounds of a game, as rounds or as the moves of either side.
+ * <p> Nothing is copied: the views read the move histories of the game, and rounds are the shared instances.
+ */
+public final class GameHistory {
+
+    private final List<Move> playerMoves;
+    private final List<Move> aiMoves;
+    private final List<Round> rounds;
+
+    GameHistory(MoveHistory playerMoves, MoveHistory aiMoves) {
+        this.playerMoves = Collections.unmodifiableList(playerMoves);
+        this.aiMoves = Collections.unmodifiableList(aiMoves);
+        this.rounds = new RoundView(playerMoves, aiMoves);
+    }
+
+    /**
+     * @return rounds played so far, in order
+     */
+    public List<Round> getRounds() {
+        return rounds;
+    }
+
+    /**
+     * @return moves of the player (the AI's opponent) so far, in order
+     */
+    public List<Move> getPlayerMoves() {
+        return playerMoves;
+    }
+
+    /**
+     * @return moves of the AI so far, in order
+     */
+    public List<Move> getAiMoves() {
+        return aiMoves;
+    }
+
+    public int size() {
+        return playerMoves.size();
+    }
+
+    private static final class RoundView extends AbstractList<Round> implements RandomAccess {
+        private final MoveHistory playerMoves;
+        private final MoveHistory aiMoves;
+
+        RoundView(MoveHistory playerMoves, MoveHistory aiMoves) {
+            this.playerMoves = playerMoves;
+            this.aiMoves = aiMoves;
+        }
+
+        @Override
+        public Round get(int index) {
+            return Round.of(playerMoves.get(index), aiMoves.get(index));
+        }
+
+        @Override
+        public int size() {
+            return playerMoves.size();
+        }
+    }
+}
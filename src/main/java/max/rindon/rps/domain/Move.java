@@ -1,27 +1,16 @@
 package max.rindon.rps.domain;
 
-import java.util.EnumMap;
-
 public enum Move {
     ROCK, PAPER, SCISSORS;
 
-    private static final EnumMap<Move, Move> LOSES_TO = new EnumMap<>(Move.class);
-    private static final EnumMap<Move, Move> BEATS = new EnumMap<>(Move.class);
-
-    static {
-        LOSES_TO.put(ROCK, PAPER);
-        LOSES_TO.put(PAPER, SCISSORS);
-        LOSES_TO.put(SCISSORS, ROCK);
-
-        BEATS.put(PAPER, ROCK);
-        BEATS.put(SCISSORS, PAPER);
-        BEATS.put(ROCK, SCISSORS);
-    }
+    // indexed by ordinal
+    private static final Move[] LOSES_TO = {PAPER, SCISSORS, ROCK};
+    private static final Move[] BEATS = {SCISSORS, ROCK, PAPER};
 
-    public Move beats() { return BEATS.get(this); }
+    public Move beats() { return BEATS[ordinal()]; }
 
     public Move losesTo() {
-        return LOSES_TO.get(this);
+        return LOSES_TO[ordinal()];
     }
 
 }
@@ -0,0 +1,55 @@
+package max.rindon.rps.domain;
+
+import java.util.AbstractList;
+import java.util.RandomAccess;
+
+/**
+ * Append-only history of moves stored as one byte per move.
+ * <p> Moves are kept in fixed-size segments which are never copied, so appending is O(1)
+ * and the history itself can be handed out as a live read-only view: readers see new moves as they are appended.
+ * There must be a single writer, but moves already appended never change,
+ * so they may be read from other threads while the history grows.
+ */
+public final class MoveHistory extends AbstractList<Move> implements RandomAccess {
+
+    private static final int SEGMENT_BITS = 10;
+    private static final int SEGMENT_SIZE = 1 << SEGMENT_BITS;
+    private static final int SEGMENT_MASK = SEGMENT_SIZE - 1;
+    private static final Move[] MOVES = Move.values();
+
+    private volatile byte[][] segments = new byte[1][];
+    private volatile int size;
+
+    /**
+     * Append move to the end of history.
+     * @param move move to append
+     */
+    public void append(Move move) {
+        int index = size;
+        int segment = index >>> SEGMENT_BITS;
+        byte[][] current = segments;
+        if (segment == current.length) {
+            byte[][] grown = new byte[2 * current.length][];
+            System.arraycopy(current, 0, grown, 0, current.length);
+            segments = current = grown;
+        }
+        if (current[segment] == null) {
+            current[segment] = new byte[SEGMENT_SIZE];
+        }
+        current[segment][index & SEGMENT_MASK] = (byte) move.ordinal();
+        size = index + 1; // publish the move
+    }
+
+    @Override
+    public Move get(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        }
+        return MOVES[segments[index >>> SEGMENT_BITS][index & SEGMENT_MASK]];
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+}
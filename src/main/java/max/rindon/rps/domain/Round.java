@@ -3,7 +3,28 @@ package max.rindon.rps.domain;
 
 import java.util.Objects;
 
+/**
+ * Round of a game. As the outcome follows from the moves, there are only 9 different rounds:
+ * use {@link #of(Move, Move)} to get a shared instance instead of creating a new one,
+ * or work with rounds packed into ints with {@link #encode(Move, Move)} and {@link #of(int)}.
+ */
 public final class Round {
+    /**
+     * Number of different rounds, codes are from 0 (inclusive) to CODES (exclusive).
+     */
+    public static final int CODES = 9;
+
+    private static final Move[] MOVES = Move.values();
+    private static final Round[] ROUNDS = new Round[CODES];
+
+    static {
+        for (Move playerMove : MOVES) {
+            for (Move aiMove : MOVES) {
+                ROUNDS[encode(playerMove, aiMove)] = new Round(playerMove, aiMove, Rules.evaluate(playerMove, aiMove));
+            }
+        }
+    }
+
     public final Move playerMove;
     public final Move aiMove;
     public final Outcome outcome;
@@ -14,6 +35,33 @@ public final class Round {
         this.outcome = outcome;
     }
 
+    /**
+     * @return shared instance of the round with given moves
+     */
+    public static Round of(Move playerMove, Move aiMove) {
+        return ROUNDS[encode(playerMove, aiMove)];
+    }
+
+    /**
+     * @param code code of a round, see {@link #encode(Move, Move)}
+     * @return shared instance of the round with given code
+     */
+    public static Round of(int code) {
+        return ROUNDS[code];
+    }
+
+    /**
+     * Pack a round into an int.
+     * @return {@code 3 * playerMove.ordinal() + aiMove.ordinal()}
+     */
+    public static int encode(Move playerMove, Move aiMove) {
+        return playerMove.ordinal() * MOVES.length + aiMove.ordinal();
+    }
+
+    public int code() {
+        return encode(playerMove, aiMove);
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
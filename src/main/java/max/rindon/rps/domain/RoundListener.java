@@ -0,0 +1,7 @@
+package max.rindon.rps.domain;
+
+@FunctionalInterface
+public interface RoundListener {
+
+    void onRoundPlayed(Round round);
+}
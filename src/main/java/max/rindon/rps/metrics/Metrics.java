@@ -0,0 +1,224 @@
+package max.rindon.rps.metrics;
+
+import max.rindon.rps.ai.BudgetedStrategy;
+import max.rindon.rps.ai.Strategy;
+import max.rindon.rps.domain.Game;
+import max.rindon.rps.domain.Outcome;
+import max.rindon.rps.domain.Round;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.Collections;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+import java.util.function.ToLongFunction;
+
+/**
+ * Engine metrics: rounds and outcomes of tracked games, decision latency of timed strategies
+ * and fallbacks of budgeted ones.
+ * <p> Meant to be shared by many concurrent games, so counters are striped ({@link LongAdder})
+ * and recording never locks. {@link #global()} is also available through JMX.
+ */
+public final class Metrics implements MetricsMXBean {
+
+    public static final String OBJECT_NAME = "max.rindon.rps:type=Metrics";
+    private static final int DEFAULT_WINDOW_SECONDS = 10;
+
+    private final LongSupplier nanoTime;
+    private final LongAdder games = new LongAdder();
+    private final LongAdder[] outcomes; // indexed by outcome ordinal, from the player point of view
+    private final LongAccumulator longestHistory = new LongAccumulator(Math::max, 0);
+    private final SlidingWindow window;
+    private final ConcurrentMap<String, LatencyHistogram> decisionLatency = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, BudgetedStrategy.Counts> budgets = new ConcurrentHashMap<>();
+
+    public Metrics() {
+        this(DEFAULT_WINDOW_SECONDS, System::nanoTime);
+    }
+
+    Metrics(int windowSeconds, LongSupplier nanoTime) {
+        this.nanoTime = nanoTime;
+        this.window = new SlidingWindow(windowSeconds, nanoTime);
+        this.outcomes = new LongAdder[Outcome.values().length];
+        for (int i = 0; i < outcomes.length; i++) {
+            outcomes[i] = new LongAdder();
+        }
+    }
+
+    /**
+     * @return process wide metrics, registered with the platform MBean server
+     */
+    public static Metrics global() {
+        return Global.INSTANCE;
+    }
+
+    /**
+     * Count the rounds of the game from now on.
+     * @param game game to track
+     */
+    public void track(Game game) {
+        games.increment();
+        game.addRoundListener(round -> onRoundPlayed(round, game.getRoundCount()));
+    }
+
+    void onRoundPlayed(Round round, int historySize) {
+        outcomes[round.outcome.ordinal()].increment();
+        window.record(round.outcome == Outcome.LOSS);
+        longestHistory.accumulate(historySize);
+    }
+
+    /**
+     * Wrap the strategy to record how long its moves take.
+     * Strategies wrapped under the same name share the histogram.
+     * @param name name to report latency under
+     * @param strategy strategy to time
+     * @return strategy making the same moves
+     */
+    public Strategy timed(String name, Strategy strategy) {
+        LatencyHistogram histogram = decisionLatency.computeIfAbsent(name, n -> new LatencyHistogram());
+        return moves -> {
+            long start = nanoTime.getAsLong();
+            try {
+                return strategy.makeMove(moves);
+            } finally {
+                histogram.record(nanoTime.getAsLong() - start);
+            }
+        };
+    }
+
+    /**
+     * Counts to give budgeted strategies, to report how often they fall back.
+     * Strategies given the counts of the same name share them.
+     * @param name name to report the counts under
+     * @return counts of moves and fallbacks
+     * @see max.rindon.rps.ai.Strategies#withBudget(Strategy, Strategy, long, java.util.concurrent.TimeUnit,
+     * java.util.concurrent.ExecutorService, BudgetedStrategy.Counts)
+     */
+    public BudgetedStrategy.Counts budgetCounts(String name) {
+        return budgets.computeIfAbsent(name, n -> new BudgetedStrategy.Counts());
+    }
+
+    /**
+     * @return counts of budgeted strategies by name, sorted by name
+     */
+    public Map<String, BudgetedStrategy.Counts> getBudgetCounts() {
+        return Collections.unmodifiableMap(new TreeMap<>(budgets));
+    }
+
+    /**
+     * @return decision latency histograms by strategy name, sorted by name
+     */
+    public Map<String, LatencyHistogram> getDecisionLatency() {
+        return Collections.unmodifiableMap(new TreeMap<>(decisionLatency));
+    }
+
+    @Override
+    public long getGames() {
+        return games.sum();
+    }
+
+    @Override
+    public long getRounds() {
+        long rounds = 0;
+        for (LongAdder outcome : outcomes) {
+            rounds += outcome.sum();
+        }
+        return rounds;
+    }
+
+    @Override
+    public long getAiWins() {
+        return outcomes[Outcome.LOSS.ordinal()].sum();
+    }
+
+    @Override
+    public long getAiLosses() {
+        return outcomes[Outcome.WIN.ordinal()].sum();
+    }
+
+    @Override
+    public long getDraws() {
+        return outcomes[Outcome.DRAW.ordinal()].sum();
+    }
+
+    @Override
+    public int getWindowSeconds() {
+        return window.getSeconds();
+    }
+
+    @Override
+    public double getRoundsPerSecond() {
+        return window.getRoundsPerSecond();
+    }
+
+    @Override
+    public double getAiWinRate() {
+        return window.getAiWinRate();
+    }
+
+    @Override
+    public long getLongestHistory() {
+        return longestHistory.get();
+    }
+
+    @Override
+    public double getRoundsPerGame() {
+        long n = games.sum();
+        return n == 0 ? 0 : (double) getRounds() / n;
+    }
+
+    @Override
+    public Map<String, Long> getDecisionLatencyMedianNanos() {
+        return latency(histogram -> histogram.getValueAtPercentile(50));
+    }
+
+    @Override
+    public Map<String, Long> getDecisionLatencyP99Nanos() {
+        return latency(histogram -> histogram.getValueAtPercentile(99));
+    }
+
+    @Override
+    public Map<String, Long> getDecisionLatencyMaxNanos() {
+        return latency(LatencyHistogram::getMax);
+    }
+
+    @Override
+    public Map<String, Long> getBudgetedMoves() {
+        return budget(BudgetedStrategy.Counts::getMoves);
+    }
+
+    @Override
+    public Map<String, Long> getBudgetFallbacks() {
+        return budget(BudgetedStrategy.Counts::getFallbacks);
+    }
+
+    private Map<String, Long> budget(ToLongFunction<BudgetedStrategy.Counts> value) {
+        Map<String, Long> counts = new TreeMap<>();
+        budgets.forEach((name, budget) -> counts.put(name, value.applyAsLong(budget)));
+        return counts;
+    }
+
+    private Map<String, Long> latency(ToLongFunction<LatencyHistogram> value) {
+        Map<String, Long> latency = new TreeMap<>();
+        decisionLatency.forEach((name, histogram) -> latency.put(name, value.applyAsLong(histogram)));
+        return latency;
+    }
+
+    private static final class Global {
+        static final Metrics INSTANCE = new Metrics();
+
+        static {
+            try {
+                ManagementFactory.getPlatformMBeanServer().registerMBean(INSTANCE, new ObjectName(OBJECT_NAME));
+            } catch (JMException e) {
+                throw new IllegalStateException("Could not register metrics MBean", e);
+            }
+        }
+    }
+}
@@ -0,0 +1,40 @@
+package max.rindon.rps.metrics;
+
+import java.util.Map;
+
+/**
+ * Management interface of {@link Metrics}, registered as {@value Metrics#OBJECT_NAME}.
+ * AI wins and losses are from the AI point of view, windowed values cover the last {@link #getWindowSeconds()} seconds.
+ */
+public interface MetricsMXBean {
+
+    long getGames();
+
+    long getRounds();
+
+    long getAiWins();
+
+    long getAiLosses();
+
+    long getDraws();
+
+    int getWindowSeconds();
+
+    double getRoundsPerSecond();
+
+    double getAiWinRate();
+
+    long getLongestHistory();
+
+    double getRoundsPerGame();
+
+    Map<String, Long> getDecisionLatencyMedianNanos();
+
+    Map<String, Long> getDecisionLatencyP99Nanos();
+
+    Map<String, Long> getDecisionLatencyMaxNanos();
+
+    Map<String, Long> getBudgetedMoves();
+
+    Map<String, Long> getBudgetFallbacks();
+}
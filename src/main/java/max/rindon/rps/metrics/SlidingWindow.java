@@ -0,0 +1,90 @@
+package max.rindon.rps.metrics;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * Counts rounds and AI wins over the last seconds, in a ring of one second slots.
+ * <p> Slots are reused once their second is out of the window. Resetting a slot races with
+ * concurrent recordings into it, so a few rounds at a second boundary may be lost, which is fine for monitoring.
+ */
+final class SlidingWindow {
+
+    private static final long NANOS_PER_SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    private final int seconds;
+    private final LongSupplier nanoTime;
+    private final long origin; // System.nanoTime() may be negative
+    private final AtomicLongArray slotSeconds; // second each slot currently counts
+    private final LongAdder[] rounds;
+    private final LongAdder[] aiWins;
+
+    SlidingWindow(int seconds, LongSupplier nanoTime) {
+        if (seconds < 1) {
+            throw new IllegalArgumentException("Window should be at least a second long: " + seconds);
+        }
+        this.seconds = seconds;
+        this.nanoTime = nanoTime;
+        this.origin = nanoTime.getAsLong();
+        int slots = seconds + 1; // the window plus the current, incomplete second
+        this.slotSeconds = new AtomicLongArray(slots);
+        this.rounds = new LongAdder[slots];
+        this.aiWins = new LongAdder[slots];
+        for (int i = 0; i < slots; i++) {
+            slotSeconds.set(i, -1);
+            rounds[i] = new LongAdder();
+            aiWins[i] = new LongAdder();
+        }
+    }
+
+    void record(boolean aiWon) {
+        long second = now();
+        int slot = (int) (second % slotSeconds.length());
+        long slotSecond = slotSeconds.get(slot);
+        if (slotSecond != second && slotSeconds.compareAndSet(slot, slotSecond, second)) {
+            rounds[slot].reset();
+            aiWins[slot].reset();
+        }
+        rounds[slot].increment();
+        if (aiWon) {
+            aiWins[slot].increment();
+        }
+    }
+
+    int getSeconds() {
+        return seconds;
+    }
+
+    /**
+     * @return rounds per second over the complete seconds of the window
+     */
+    double getRoundsPerSecond() {
+        return (double) sum(rounds) / seconds;
+    }
+
+    /**
+     * @return share of rounds won by AI over the complete seconds of the window, 0 if no rounds were played
+     */
+    double getAiWinRate() {
+        long played = sum(rounds);
+        return played == 0 ? 0 : (double) sum(aiWins) / played;
+    }
+
+    private long sum(LongAdder[] counters) {
+        long current = now();
+        long sum = 0;
+        for (int i = 0; i < counters.length; i++) {
+            long second = slotSeconds.get(i);
+            if (second < current && second >= current - seconds) {
+                sum += counters[i].sum();
+            }
+        }
+        return sum;
+    }
+
+    private long now() {
+        return (nanoTime.getAsLong() - origin) / NANOS_PER_SECOND;
+    }
+}
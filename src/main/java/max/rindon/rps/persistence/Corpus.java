@@ -0,0 +1,226 @@
+package max.rindon.rps.persistence;
+
+import max.rindon.rps.ai.Strategy;
+import max.rindon.rps.domain.Move;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.RandomAccess;
+
+/**
+ * Recorded sessions of players, streamed one after another from a file of any size.
+ * <p> Two formats are supported, told apart by the header:
+ * <ul>
+ *     <li>text, a session per line and a letter per move as typed in the console, e.g. {@code rpsrrsp};</li>
+ *     <li>packed, written by {@link CorpusWriter}: a {@link #HEADER} followed by every session as its length
+ *     (a big-endian int) and its moves, 2 bits per move, four moves per byte starting from the lowest bits.</li>
+ * </ul>
+ * <p> Like {@link RoundLogReader}, the file is memory-mapped in chunks and scanned byte by byte.
+ * The moves of the current session are unpacked into a reusable buffer, which {@link #session()} shows
+ * and {@link #opponent()} replays, so streaming sessions doesn't create objects per move or per session.
+ * <p> A corpus is a cursor over the file and is not thread-safe; open one per thread to read in parallel.
+ */
+public final class Corpus implements Closeable {
+
+    static final byte[] HEADER = {'R', 'P', 'C', 1}; // magic and format version of the packed format
+
+    private static final int CHUNK_SIZE = 1 << 30;
+    private static final Move[] MOVES = Move.values();
+    private static final byte[] LETTER_TO_MOVE = new byte[128]; // ordinal by letter, -1 if it isn't a move
+
+    static {
+        Arrays.fill(LETTER_TO_MOVE, (byte) -1);
+        for (Move move : MOVES) {
+            char letter = move.name().charAt(0);
+            LETTER_TO_MOVE[letter] = (byte) move.ordinal();
+            LETTER_TO_MOVE[Character.toLowerCase(letter)] = (byte) move.ordinal();
+        }
+    }
+
+    private final Path path;
+    private final FileChannel channel;
+    private final long size;
+    private final boolean packed;
+    private final List<Move> session = new SessionView();
+    private final Strategy opponent;
+    private MappedByteBuffer chunk;
+    private long chunkStart; // position of the chunk in the file
+    private byte[] moves = new byte[256]; // ordinals of the moves of the current session
+    private int length; // number of moves in the current session
+
+    private Corpus(Path path, FileChannel channel) throws IOException {
+        this.path = path;
+        this.channel = channel;
+        this.size = channel.size();
+        this.chunk = channel.map(FileChannel.MapMode.READ_ONLY, 0, Math.min(CHUNK_SIZE, size));
+        this.packed = hasHeader(chunk);
+        if (packed) {
+            chunk.position(HEADER.length);
+        }
+        this.opponent = history -> {
+            if (length == 0) {
+                throw new IllegalStateException("No current session, next() should return true first");
+            }
+            return MOVES[moves[history.size() % length]];
+        };
+    }
+
+    /**
+     * Open the corpus, positioned before the first session.
+     * @param path corpus file, in either format
+     * @return corpus
+     */
+    public static Corpus open(Path path) throws IOException {
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.READ);
+        try {
+            return new Corpus(path, channel);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Move to the next session. Empty sessions are skipped.
+     * @return whether there is a next session
+     * @throws IOException if the file is corrupted
+     */
+    public boolean next() throws IOException {
+        length = 0;
+        return packed ? nextPacked() : nextText();
+    }
+
+    /**
+     * The same view is returned for all sessions, each time showing the session current at the time of the access.
+     * @return read-only view of the moves of the current session
+     */
+    public List<Move> session() {
+        return session;
+    }
+
+    /**
+     * The same strategy is returned for all sessions, each time playing the session current at the time of the move.
+     * @return strategy making the moves of the current session in order, starting over when they run out,
+     * like {@link max.rindon.rps.ai.Strategies#sequence(java.util.List)};
+     * it throws {@link IllegalStateException} when there is no current session
+     */
+    public Strategy opponent() {
+        return opponent;
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    private boolean nextText() throws IOException {
+        for (int c = read(); c >= 0; c = read()) {
+            if (c == '\n') {
+                if (length > 0) {
+                    return true;
+                }
+            } else if (c != '\r') {
+                int move = c < LETTER_TO_MOVE.length ? LETTER_TO_MOVE[c] : -1;
+                if (move < 0) {
+                    throw corrupted();
+                }
+                add(move);
+            }
+        }
+        return length > 0;
+    }
+
+    private boolean nextPacked() throws IOException {
+        for (int first = read(); first >= 0; first = read()) {
+            int sessionLength = first << 24 | readFully() << 16 | readFully() << 8 | readFully();
+            if (sessionLength < 0 || (sessionLength + 3L) / 4 > remaining()) { // don't grow the buffer for moves not there
+                throw corrupted();
+            }
+            for (int i = 0; i < sessionLength; i += 4) {
+                int b = readFully();
+                for (int j = 0; j < 4 && i + j < sessionLength; j++) {
+                    int move = (b >>> 2 * j) & 3;
+                    if (move >= MOVES.length) {
+                        throw corrupted();
+                    }
+                    add(move);
+                }
+            }
+            if (length > 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void add(int move) {
+        if (length == moves.length) {
+            moves = Arrays.copyOf(moves, 2 * length);
+        }
+        moves[length++] = (byte) move;
+    }
+
+    // next byte, or -1 at the end of the file
+    private int read() throws IOException {
+        if (!chunk.hasRemaining()) {
+            long next = chunkStart + chunk.limit();
+            if (next >= size) {
+                return -1;
+            }
+            chunk = channel.map(FileChannel.MapMode.READ_ONLY, next, Math.min(CHUNK_SIZE, size - next));
+            chunkStart = next;
+        }
+        return chunk.get() & 0xFF;
+    }
+
+    // bytes left in the file after the current position
+    private long remaining() {
+        return size - chunkStart - chunk.position();
+    }
+
+    private int readFully() throws IOException {
+        int b = read();
+        if (b < 0) {
+            throw new IOException("Truncated corpus " + path);
+        }
+        return b;
+    }
+
+    private IOException corrupted() {
+        return new IOException("Corrupted corpus " + path + " at " + (chunkStart + chunk.position() - 1));
+    }
+
+    private static boolean hasHeader(MappedByteBuffer buffer) {
+        if (buffer.limit() < HEADER.length) {
+            return false;
+        }
+        for (int i = 0; i < HEADER.length; i++) {
+            if (buffer.get(i) != HEADER[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private final class SessionView extends AbstractList<Move> implements RandomAccess {
+        @Override
+        public Move get(int index) {
+            if (index < 0 || index >= length) {
+                throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + length);
+            }
+            return MOVES[moves[index]];
+        }
+
+        @Override
+        public int size() {
+            return length;
+        }
+    }
+}
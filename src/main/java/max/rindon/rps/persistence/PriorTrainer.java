@@ -0,0 +1,56 @@
+package max.rindon.rps.persistence;
+
+import max.rindon.rps.ai.LearningStrategy;
+import max.rindon.rps.ai.ModelSnapshots;
+import max.rindon.rps.ai.Strategies;
+import max.rindon.rps.domain.MoveHistory;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Trains a prior model, the one new games start from, on the player moves of many recorded games.
+ * <p> The histories are learned one after another as if they were a single long game,
+ * so the only noise is at the few places where one player's history follows another's.
+ */
+public class PriorTrainer {
+
+    private PriorTrainer() {}
+
+    /**
+     * Learn the histories of the games into the strategy.
+     * @param strategy strategy to train, the model learned so far is kept
+     * @param logs round logs of the games
+     * @return number of moves learned
+     */
+    public static long train(LearningStrategy strategy, Iterable<Path> logs) throws IOException {
+        MoveHistory moves = new MoveHistory();
+        for (Path log : logs) {
+            RoundLogReader.replay(log, (playerMove, aiMove, outcome) -> moves.append(playerMove));
+        }
+        strategy.makeMove(moves);
+        return moves.size();
+    }
+
+    /**
+     * Train the Markov chain model the console and the servers play with.
+     * @param args file to save the prior to, followed by round logs to learn from
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println("Usage: PriorTrainer <prior file> <round log>...");
+            System.exit(1);
+        }
+        List<Path> logs = new ArrayList<>();
+        for (int i = 1; i < args.length; i++) {
+            logs.add(Paths.get(args[i]));
+        }
+        LearningStrategy strategy = Strategies.markovChain(Strategies.random());
+        long moves = train(strategy, logs);
+        ModelSnapshots.save(strategy, Paths.get(args[0]));
+        System.out.println("Learned " + moves + " moves from " + logs.size() + " games into " + args[0]);
+    }
+}
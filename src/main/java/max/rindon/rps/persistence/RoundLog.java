@@ -0,0 +1,88 @@
+package max.rindon.rps.persistence;
+
+import max.rindon.rps.domain.Round;
+import max.rindon.rps.domain.RoundListener;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Append-only file of played rounds.
+ * <p> The file starts with a {@link #HEADER} followed by a byte per round, the round code (see {@link Round#encode}).
+ * Rounds are buffered and written in batches (group commit), when the batch is full and when the log is closed.
+ * Use {@link RoundLogReader} to read the rounds back.
+ */
+public class RoundLog implements RoundListener, Closeable {
+
+    static final byte[] HEADER = {'R', 'P', 'S', 1}; // magic and format version
+
+    private final FileChannel channel;
+    private final ByteBuffer batch;
+    private final boolean sync;
+
+    /**
+     * Open log for appending, creating it if it doesn't exist.
+     * @param path log file
+     * @param batchSize number of rounds to write at once
+     * @param sync whether to force each batch to the storage device
+     */
+    public RoundLog(Path path, int batchSize, boolean sync) throws IOException {
+        if (batchSize < 1) {
+            throw new IllegalArgumentException("Batch size should be positive: " + batchSize);
+        }
+        this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        this.batch = ByteBuffer.allocateDirect(batchSize);
+        this.sync = sync;
+        if (channel.size() == 0) {
+            writeFully(ByteBuffer.wrap(HEADER));
+        }
+    }
+
+    /**
+     * Append a round.
+     * @throws UncheckedIOException if the batch couldn't be written
+     */
+    @Override
+    public void onRoundPlayed(Round round) {
+        batch.put((byte) round.code());
+        if (!batch.hasRemaining()) {
+            try {
+                commit();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    /**
+     * Write buffered rounds.
+     */
+    public void commit() throws IOException {
+        batch.flip();
+        writeFully(batch);
+        batch.clear();
+        if (sync) {
+            channel.force(false);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            commit();
+        } finally {
+            channel.close();
+        }
+    }
+
+    private void writeFully(ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+}
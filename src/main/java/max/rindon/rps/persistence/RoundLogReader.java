@@ -0,0 +1,68 @@
+package max.rindon.rps.persistence;
+
+import max.rindon.rps.domain.Game;
+import max.rindon.rps.domain.Round;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Reads rounds written by {@link RoundLog}.
+ * <p> The file is memory-mapped (in chunks, to support files larger than 2GB) and scanned byte by byte,
+ * so replaying doesn't create any objects per round.
+ */
+public class RoundLogReader {
+
+    private static final int CHUNK_SIZE = 1 << 30;
+
+    private RoundLogReader() {}
+
+    /**
+     * Visit all rounds in the log, in the order they were played.
+     * @param path log file
+     * @param visitor visitor to call for each round
+     * @return number of rounds visited
+     * @throws IOException if the file is not a round log or is corrupted
+     */
+    public static long replay(Path path, RoundVisitor visitor) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            checkHeader(channel.map(FileChannel.MapMode.READ_ONLY, 0, Math.min(size, RoundLog.HEADER.length)), path);
+            long rounds = 0;
+            for (long position = RoundLog.HEADER.length; position < size; position += CHUNK_SIZE) {
+                MappedByteBuffer chunk = channel.map(FileChannel.MapMode.READ_ONLY, position, Math.min(CHUNK_SIZE, size - position));
+                while (chunk.hasRemaining()) {
+                    int code = chunk.get();
+                    if (code < 0 || code >= Round.CODES) {
+                        throw new IOException("Corrupted round log " + path + " at " + (position + chunk.position() - 1));
+                    }
+                    Round round = Round.of(code);
+                    visitor.visit(round.playerMove, round.aiMove, round.outcome);
+                    rounds++;
+                }
+            }
+            return rounds;
+        }
+    }
+
+    /**
+     * Add all rounds in the log to a game, to resume it.
+     * @param path log file
+     * @param game game to add rounds to
+     * @return number of rounds added
+     */
+    public static long resume(Path path, Game game) throws IOException {
+        return replay(path, (playerMove, aiMove, outcome) -> game.replayRound(playerMove, aiMove));
+    }
+
+    private static void checkHeader(MappedByteBuffer header, Path path) throws IOException {
+        for (byte expected : RoundLog.HEADER) {
+            if (!header.hasRemaining() || header.get() != expected) {
+                throw new IOException("Not a round log: " + path);
+            }
+        }
+    }
+}
@@ -0,0 +1,10 @@
+package max.rindon.rps.persistence;
+
+import max.rindon.rps.domain.Move;
+import max.rindon.rps.domain.Outcome;
+
+@FunctionalInterface
+public interface RoundVisitor {
+
+    void visit(Move playerMove, Move aiMove, Outcome outcome);
+}
@@ -0,0 +1,118 @@
+package max.rindon.rps.server;
+
+import max.rindon.rps.GameRunner;
+import max.rindon.rps.ai.LearningStrategy;
+import max.rindon.rps.ai.ModelSnapshots;
+import max.rindon.rps.ai.Strategies;
+import max.rindon.rps.ai.Strategy;
+import max.rindon.rps.metrics.Metrics;
+import max.rindon.rps.ui.SocketIO;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Supplier;
+
+/**
+ * Serves games over a plain TCP line protocol, running a blocking {@link GameRunner} per connection.
+ * <p> Runners either share a fixed pool of platform threads, so that at most that many games are played at once
+ * and the others wait in line, or get a virtual thread each, which is cheap enough to have one per game.
+ * Virtual threads need Java 21 at runtime; the executor is looked up reflectively
+ * so that the rest of the project keeps building for Java 8.
+ */
+public class BlockingGameServer {
+
+    public enum Mode { PLATFORM_THREADS, VIRTUAL_THREADS }
+
+    private final ServerSocket serverSocket;
+    private final ExecutorService executor;
+    private final Supplier<Strategy> aiStrategies;
+    private final Thread acceptor;
+
+    /**
+     * @param port port to listen on, 0 to pick a free one
+     * @param mode how to run the games
+     * @param threads size of the platform thread pool, ignored for virtual threads
+     * @param aiStrategies creates AI strategy for each game
+     */
+    public BlockingGameServer(int port, Mode mode, int threads, Supplier<Strategy> aiStrategies) throws IOException {
+        this.aiStrategies = aiStrategies;
+        this.executor = mode == Mode.VIRTUAL_THREADS ? newVirtualThreadPerTaskExecutor() : Executors.newFixedThreadPool(threads);
+        this.serverSocket = new ServerSocket(port, 1024);
+        this.acceptor = new Thread(this::accept, "blocking-game-acceptor");
+    }
+
+    public void start() {
+        acceptor.start();
+    }
+
+    public void stop() throws IOException {
+        serverSocket.close();
+        executor.shutdownNow();
+    }
+
+    public int getPort() {
+        return serverSocket.getLocalPort();
+    }
+
+    private void accept() {
+        while (!serverSocket.isClosed()) {
+            Socket socket;
+            try {
+                socket = serverSocket.accept();
+            } catch (IOException e) {
+                continue; // either we are stopping, or e.g. out of file descriptors for now
+            }
+            try {
+                socket.setTcpNoDelay(true);
+                executor.execute(() -> play(socket));
+            } catch (IOException | RejectedExecutionException e) { // e.g. the peer has already reset the connection
+                try {
+                    socket.close();
+                } catch (IOException ignored) {
+                    // nothing to do, the connection is dropped anyway
+                }
+            }
+        }
+    }
+
+    private void play(Socket socket) {
+        try (SocketIO io = new SocketIO(socket)) {
+            new GameRunner(io, aiStrategies.get()).run();
+        } catch (IOException | UncheckedIOException e) {
+            // the player has gone, nothing to do
+        }
+    }
+
+    /**
+     * @return executor starting a new virtual thread for each task
+     * @throws UnsupportedOperationException if virtual threads are not available in this JVM
+     */
+    static ExecutorService newVirtualThreadPerTaskExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            throw new UnsupportedOperationException("Virtual threads need Java 21 or later", e);
+        }
+    }
+
+    /**
+     * Start the server. AI models start from the prior in the {@value ModelSnapshots#PRIOR_PROPERTY} system property, if any.
+     * @param args port (8082 by default), mode (PLATFORM_THREADS by default, VIRTUAL_THREADS needs Java 21) and number of platform threads
+     */
+    public static void main(String[] args) throws IOException {
+        Supplier<LearningStrategy> strategies =
+                ModelSnapshots.withConfiguredPrior(() -> Strategies.markovChain(Strategies.random()));
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : 8082;
+        Mode mode = args.length > 1 ? Mode.valueOf(args[1]) : Mode.PLATFORM_THREADS;
+        int threads = args.length > 2 ? Integer.parseInt(args[2]) : 200;
+        BlockingGameServer server = new BlockingGameServer(port, mode, threads,
+                () -> Metrics.global().timed("markovChain", strategies.get()));
+        server.start();
+        System.out.println("Listening on port " + server.getPort() + " using " + mode);
+    }
+}
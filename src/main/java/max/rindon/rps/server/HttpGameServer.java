@@ -0,0 +1,284 @@
+package max.rindon.rps.server;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import max.rindon.rps.GameSession;
+import max.rindon.rps.ai.LearningStrategy;
+import max.rindon.rps.ai.ModelSnapshots;
+import max.rindon.rps.ai.Strategies;
+import max.rindon.rps.ai.Strategy;
+import max.rindon.rps.domain.Game;
+import max.rindon.rps.metrics.Metrics;
+import max.rindon.rps.ui.Output;
+import max.rindon.rps.ui.UI;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Serves many simultaneous games over HTTP, using the JDK built-in server.
+ * <p> Protocol (all bodies are plain text):
+ * <ul>
+ *     <li>{@code POST /games} starts a game and replies with its id on the first line, followed by the welcome message.</li>
+ *     <li>{@code POST /games/<id>} with a line of player input (a move or a command) replies the same way the console does.</li>
+ * </ul>
+ * Games don't hold any threads, requests are handled by a fixed pool.
+ * The next AI move of a game is computed between requests, on a pool of the server (see {@link Game#speculate}),
+ * so a request only has to evaluate the round.
+ * Memory is bounded by the maximum number of games, the maximum number of rounds per game
+ * (the game ends with statistics after that) and the idle timeout after which games are dropped.
+ */
+public class HttpGameServer {
+
+    static final String PATH = "/games";
+    private static final byte NEWLINE = '\n';
+    private static final int MAX_INPUT_LENGTH = 1024; // the rest of the request body is ignored
+
+    static {
+        // the built-in server writes response headers and body separately,
+        // with Nagle's algorithm on each small response waits for a delayed ACK
+        if (System.getProperty("sun.net.httpserver.nodelay") == null) {
+            System.setProperty("sun.net.httpserver.nodelay", "true");
+        }
+    }
+
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final ScheduledExecutorService evictor;
+    private final ExecutorService aiExecutor; // computes AI moves ahead
+    private final Supplier<Strategy> aiStrategies;
+    private final int maxGames;
+    private final int maxRoundsPerGame;
+    private final long idleTimeoutMillis;
+    private final Map<String, HostedGame> games = new ConcurrentHashMap<>();
+    private final AtomicInteger gameSlots = new AtomicInteger(); // taken before a game is added, freed when removed
+
+    public HttpGameServer(int port, int threads, Supplier<Strategy> aiStrategies,
+                          int maxGames, int maxRoundsPerGame, long idleTimeoutMillis) throws IOException {
+        this.aiStrategies = aiStrategies;
+        this.maxGames = maxGames;
+        this.maxRoundsPerGame = maxRoundsPerGame;
+        this.idleTimeoutMillis = idleTimeoutMillis;
+        this.server = HttpServer.create(new InetSocketAddress(port), 0);
+        this.executor = Executors.newFixedThreadPool(threads);
+        this.evictor = Executors.newSingleThreadScheduledExecutor();
+        this.aiExecutor = newAiExecutor("http-game-ai-", threads);
+        server.setExecutor(executor);
+        server.createContext(PATH, this::handle);
+    }
+
+    public void start() {
+        server.start();
+        long period = Math.max(1, idleTimeoutMillis / 2);
+        evictor.scheduleAtFixedRate(this::evictIdleGames, period, period, TimeUnit.MILLISECONDS);
+    }
+
+    public void stop() {
+        server.stop(0);
+        evictor.shutdownNow();
+        executor.shutdownNow();
+        aiExecutor.shutdown();
+    }
+
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    public int getGameCount() {
+        return games.size();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try {
+            if (!"POST".equals(exchange.getRequestMethod())) {
+                reply(exchange, 405, "Only POST is supported");
+                return;
+            }
+            String path = exchange.getRequestURI().getPath();
+            if (path.equals(PATH) || path.equals(PATH + "/")) {
+                startGame(exchange);
+            } else {
+                play(exchange, path.substring(PATH.length() + 1));
+            }
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private void startGame(HttpExchange exchange) throws IOException {
+        if (gameSlots.incrementAndGet() > maxGames) {
+            gameSlots.decrementAndGet();
+            reply(exchange, 503, "Too many games, please try again later");
+            return;
+        }
+        String id = UUID.randomUUID().toString();
+        byte[] welcome;
+        try {
+            HostedGame game = new HostedGame(aiStrategies.get(), aiExecutor);
+            welcome = game.start(id);
+            games.put(id, game);
+        } catch (RuntimeException | Error e) {
+            gameSlots.decrementAndGet();
+            throw e;
+        }
+        reply(exchange, 201, welcome);
+    }
+
+    private void play(HttpExchange exchange, String id) throws IOException {
+        HostedGame game = games.get(id);
+        if (game == null) {
+            reply(exchange, 404, "No such game: " + id);
+            return;
+        }
+        byte[] reply = game.handle(readLine(exchange.getRequestBody()), maxRoundsPerGame);
+        if (game.isFinished()) {
+            removeGame(id, game);
+        }
+        reply(exchange, 200, reply);
+    }
+
+    private void evictIdleGames() {
+        long now = System.currentTimeMillis();
+        games.forEach((id, game) -> {
+            if (now - game.lastAccess > idleTimeoutMillis) {
+                removeGame(id, game);
+            }
+        });
+    }
+
+    private void removeGame(String id, HostedGame game) {
+        if (games.remove(id, game)) { // the game may be finished and evicted at the same time, free its slot once
+            gameSlots.decrementAndGet();
+        }
+    }
+
+    private static String readLine(InputStream in) throws IOException {
+        byte[] buffer = new byte[MAX_INPUT_LENGTH];
+        int length = 0;
+        for (int read; length < buffer.length && (read = in.read(buffer, length, buffer.length - length)) != -1; ) {
+            length += read;
+        }
+        String body = new String(buffer, 0, length, StandardCharsets.UTF_8);
+        int end = body.indexOf('\n');
+        return (end < 0 ? body : body.substring(0, end)).trim();
+    }
+
+    private static void reply(HttpExchange exchange, int status, String body) throws IOException {
+        reply(exchange, status, body.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static void reply(HttpExchange exchange, int status, byte[] bytes) throws IOException {
+        exchange.getResponseHeaders().set("Content-Type", "text/plain; charset=utf-8");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    /**
+     * @param namePrefix prefix of the thread names
+     * @param threads number of threads
+     * @return fixed pool of daemon threads to compute AI moves ahead on, so that they don't compete with other work
+     */
+    static ExecutorService newAiExecutor(String namePrefix, int threads) {
+        AtomicInteger count = new AtomicInteger();
+        ThreadFactory factory = task -> {
+            Thread thread = new Thread(task, namePrefix + count.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        };
+        return Executors.newFixedThreadPool(threads, factory);
+    }
+
+    /**
+     * Game session collecting its replies to send them back in a single response.
+     * Replies are kept encoded, pre-rendered rounds are copied as they are.
+     */
+    private static class HostedGame implements Output {
+        private static final byte[] NO_REPLY = new byte[0];
+        private static final byte[] PROMPT = UI.MOVE_PROMPT_MESSAGE.getBytes(StandardCharsets.UTF_8);
+
+        private final ByteArrayOutputStream replies = new ByteArrayOutputStream();
+        private final GameSession session;
+        private volatile long lastAccess = System.currentTimeMillis();
+
+        private HostedGame(Strategy aiStrategy, Executor aiExecutor) {
+            Game game = new Game(aiStrategy);
+            game.speculate(aiExecutor);
+            this.session = new GameSession(this, game);
+        }
+
+        synchronized byte[] start(String id) {
+            write(id);
+            session.start();
+            return takeReplies();
+        }
+
+        synchronized byte[] handle(String playerInput, int maxRounds) {
+            lastAccess = System.currentTimeMillis();
+            if (session.isFinished()) { // a concurrent request has just ended the game
+                return NO_REPLY;
+            }
+            session.handle(playerInput);
+            if (!session.isFinished() && session.getGame().getRoundCount() >= maxRounds) {
+                session.handle(":q");
+            }
+            return takeReplies();
+        }
+
+        boolean isFinished() {
+            return session.isFinished();
+        }
+
+        @Override
+        public void write(String message) {
+            write(message.getBytes(StandardCharsets.UTF_8));
+        }
+
+        @Override
+        public void write(byte[] message) {
+            replies.write(message, 0, message.length);
+            replies.write(NEWLINE);
+        }
+
+        private byte[] takeReplies() {
+            if (!session.isFinished()) {
+                write(PROMPT);
+            }
+            byte[] result = replies.toByteArray();
+            replies.reset();
+            return result;
+        }
+    }
+
+    /**
+     * Start the server. AI models start from the prior in the {@value ModelSnapshots#PRIOR_PROPERTY} system property, if any.
+     * @param args port (8080 by default) and number of request handling threads
+     */
+    public static void main(String[] args) throws IOException {
+        Supplier<LearningStrategy> strategies =
+                ModelSnapshots.withConfiguredPrior(() -> Strategies.markovChain(Strategies.random()));
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : 8080;
+        int threads = args.length > 1 ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+        HttpGameServer server = new HttpGameServer(port, threads,
+                () -> Metrics.global().timed("markovChain", strategies.get()),
+                100_000, 100_000, TimeUnit.MINUTES.toMillis(10));
+        server.start();
+        System.out.println("Listening on port " + server.getPort());
+    }
+}
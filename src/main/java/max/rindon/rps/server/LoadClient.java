@@ -0,0 +1,113 @@
+package max.rindon.rps.server;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Load generator for {@link HttpGameServer}: keeps many games going at once, each playing random moves.
+ */
+public class LoadClient {
+
+    private static final String[] MOVES = {"r", "p", "s"};
+
+    private final String baseUrl;
+    private final LongAdder rounds = new LongAdder();
+    private final LongAdder errors = new LongAdder();
+
+    public LoadClient(String baseUrl) {
+        this.baseUrl = baseUrl;
+    }
+
+    /**
+     * Play games until all of them are over.
+     * @param games number of games
+     * @param roundsPerGame rounds to play in each game
+     * @param threads number of client threads; each one interleaves its share of games
+     */
+    public void run(int games, int roundsPerGame, int threads) throws InterruptedException {
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        for (int t = 0; t < threads; t++) {
+            int share = games / threads + (t < games % threads ? 1 : 0);
+            executor.execute(() -> play(share, roundsPerGame));
+        }
+        executor.shutdown();
+        executor.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+    }
+
+    public long getRounds() {
+        return rounds.sum();
+    }
+
+    public long getErrors() {
+        return errors.sum();
+    }
+
+    private void play(int games, int roundsPerGame) {
+        String[] ids = new String[games];
+        try {
+            for (int i = 0; i < games; i++) {
+                String reply = post(baseUrl + HttpGameServer.PATH, "");
+                ids[i] = reply.substring(0, reply.indexOf('\n'));
+            }
+            for (int round = 0; round < roundsPerGame; round++) {
+                for (String id : ids) {
+                    post(baseUrl + HttpGameServer.PATH + "/" + id, MOVES[ThreadLocalRandom.current().nextInt(MOVES.length)]);
+                    rounds.increment();
+                }
+            }
+            for (String id : ids) {
+                post(baseUrl + HttpGameServer.PATH + "/" + id, ":q");
+            }
+        } catch (IOException e) {
+            errors.increment();
+        }
+    }
+
+    static String post(String url, String body) throws IOException {
+        HttpURLConnection connection = (HttpURLConnection) new URL(url).openConnection();
+        connection.setRequestMethod("POST");
+        connection.setDoOutput(true);
+        try (OutputStream out = connection.getOutputStream()) {
+            out.write(body.getBytes(StandardCharsets.UTF_8));
+        }
+        if (connection.getResponseCode() >= 400) {
+            throw new IOException("Unexpected response " + connection.getResponseCode() + " from " + url);
+        }
+        try (InputStream in = connection.getInputStream()) {
+            StringBuilder sb = new StringBuilder();
+            byte[] buffer = new byte[4096];
+            for (int read; (read = in.read(buffer)) != -1; ) {
+                sb.append(new String(buffer, 0, read, StandardCharsets.UTF_8));
+            }
+            return sb.toString();
+        }
+    }
+
+    /**
+     * Load a running server.
+     * @param args server url (http://localhost:8080 by default), number of games, rounds per game and client threads
+     */
+    public static void main(String[] args) throws InterruptedException {
+        String url = args.length > 0 ? args[0] : "http://localhost:8080";
+        int games = args.length > 1 ? Integer.parseInt(args[1]) : 1000;
+        int roundsPerGame = args.length > 2 ? Integer.parseInt(args[2]) : 100;
+        int threads = args.length > 3 ? Integer.parseInt(args[3]) : 16;
+
+        LoadClient client = new LoadClient(url);
+        long start = System.nanoTime();
+        client.run(games, roundsPerGame, threads);
+        double seconds = (System.nanoTime() - start) / 1e9;
+        System.out.println(String.format(Locale.ROOT, "%d rounds in %.1f s (%.0f rounds/s), %d errors",
+                client.getRounds(), seconds, client.getRounds() / seconds, client.getErrors()));
+    }
+}
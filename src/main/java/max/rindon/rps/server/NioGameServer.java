@@ -0,0 +1,393 @@
+package max.rindon.rps.server;
+
+import max.rindon.rps.AsyncGameRunner;
+import max.rindon.rps.ai.LearningStrategy;
+import max.rindon.rps.ai.ModelSnapshots;
+import max.rindon.rps.ai.Strategies;
+import max.rindon.rps.ai.Strategy;
+import max.rindon.rps.domain.Game;
+import max.rindon.rps.metrics.Metrics;
+import max.rindon.rps.ui.AsyncIO;
+import max.rindon.rps.ui.StreamIO;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedSelectorException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Serves games over a plain TCP line protocol, the same one the console uses, with a handful of threads.
+ * <p> Each of the event loops runs its own {@link Selector}. The first one also accepts connections
+ * and hands them out to all loops in turn. A connection stays on its loop for good,
+ * so its {@link AsyncGameRunner} is only ever touched by one thread. The next AI move of a game is computed
+ * off the loops, on a pool of the server, while waiting for the player (see {@link Game#speculate}).
+ * Should the player be quicker, the connection stops reading until the move is in, and the loop serves others meanwhile.
+ * Input lines are decoded straight from the read buffer, and output is collected in a per-connection buffer
+ * and written on flush, as the socket allows.
+ * Memory per connection is bounded: overlong input lines are cut, and connections not reading their output are dropped.
+ * A connection failing, e.g. reset by the peer or with its game throwing, is dropped alone and its loop carries on.
+ */
+public class NioGameServer {
+
+    private static final int READ_BUFFER_SIZE = 512;
+    private static final int MAX_PENDING_OUTPUT = 64 * 1024;
+    private static final int INITIAL_OUTPUT_SIZE = 1024;
+    private static final byte NEWLINE = '\n';
+    private static final ByteBuffer EMPTY = ByteBuffer.allocate(0);
+
+    private final ServerSocketChannel serverChannel;
+    private final EventLoop[] loops;
+    private final ExecutorService aiExecutor; // computes AI moves ahead
+    private final Supplier<Strategy> aiStrategies;
+    private final AtomicInteger connections = new AtomicInteger();
+
+    public NioGameServer(int port, int threads, Supplier<Strategy> aiStrategies) throws IOException {
+        this.aiStrategies = aiStrategies;
+        this.serverChannel = ServerSocketChannel.open();
+        serverChannel.bind(new InetSocketAddress(port), 1024);
+        serverChannel.configureBlocking(false);
+        this.loops = new EventLoop[threads];
+        for (int i = 0; i < threads; i++) {
+            loops[i] = new EventLoop(i);
+        }
+        this.aiExecutor = HttpGameServer.newAiExecutor("nio-game-ai-", threads);
+        serverChannel.register(loops[0].selector, SelectionKey.OP_ACCEPT);
+    }
+
+    public void start() {
+        for (EventLoop loop : loops) {
+            loop.thread.start();
+        }
+    }
+
+    public void stop() throws IOException {
+        serverChannel.close();
+        for (EventLoop loop : loops) {
+            loop.stop();
+        }
+        aiExecutor.shutdown();
+    }
+
+    public int getPort() {
+        return serverChannel.socket().getLocalPort();
+    }
+
+    public int getConnectionCount() {
+        return connections.get();
+    }
+
+    private class EventLoop implements Runnable, Executor {
+        private final Selector selector;
+        private final Thread thread;
+        private final Queue<SocketChannel> accepted = new ConcurrentLinkedQueue<>();
+        private final Queue<Runnable> tasks = new ConcurrentLinkedQueue<>();
+        private final ByteBuffer readBuffer = ByteBuffer.allocateDirect(READ_BUFFER_SIZE); // shared by the loop connections
+        private int next; // loop to give the next accepted connection to
+
+        EventLoop(int index) throws IOException {
+            this.selector = Selector.open();
+            this.thread = new Thread(this, "nio-game-loop-" + index);
+        }
+
+        @Override
+        public void run() {
+            try {
+                while (selector.isOpen()) {
+                    selector.select();
+                    registerAccepted();
+                    runTasks();
+                    Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+                    while (keys.hasNext()) {
+                        SelectionKey key = keys.next();
+                        keys.remove();
+                        if (!key.isValid()) {
+                            continue;
+                        }
+                        if (key.isAcceptable()) {
+                            accept();
+                        } else {
+                            handle((Connection) key.attachment());
+                        }
+                    }
+                }
+            } catch (ClosedSelectorException e) {
+                // stopped
+            } catch (IOException e) {
+                throw new UncheckedIOException(e); // the selector itself is broken
+            } finally {
+                close();
+            }
+        }
+
+        // a failing connection is dropped, the others on the loop carry on
+        private void handle(Connection connection) {
+            SelectionKey key = connection.key;
+            try {
+                if (key.isReadable()) {
+                    connection.read(readBuffer);
+                }
+                if (key.isValid() && key.isWritable()) {
+                    connection.flush();
+                }
+            } catch (RuntimeException e) {
+                connection.disconnect();
+            }
+        }
+
+        /**
+         * Run the task on the loop thread.
+         */
+        @Override
+        public void execute(Runnable task) {
+            tasks.add(task);
+            selector.wakeup();
+        }
+
+        private void runTasks() {
+            for (Runnable task; (task = tasks.poll()) != null; ) {
+                task.run();
+            }
+        }
+
+        private void accept() {
+            while (true) {
+                SocketChannel channel;
+                try {
+                    channel = serverChannel.accept();
+                } catch (IOException e) {
+                    return; // e.g. out of file descriptors, accepting is retried on the next select
+                }
+                if (channel == null) {
+                    break;
+                }
+                EventLoop loop = loops[next];
+                next = (next + 1) % loops.length;
+                loop.accepted.add(channel);
+                if (loop != this) {
+                    loop.selector.wakeup();
+                }
+            }
+            registerAccepted();
+        }
+
+        private void registerAccepted() {
+            for (SocketChannel channel; (channel = accepted.poll()) != null; ) {
+                Connection connection = null;
+                try {
+                    channel.configureBlocking(false);
+                    channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+                    connection = new Connection(channel, this);
+                    connection.key = channel.register(selector, SelectionKey.OP_READ, connection);
+                    connections.incrementAndGet();
+                    connection.runner.start();
+                } catch (IOException | RuntimeException e) { // e.g. the peer has already reset the connection
+                    if (connection != null && connection.key != null) {
+                        connection.disconnect();
+                    } else {
+                        closeQuietly(channel);
+                    }
+                }
+            }
+        }
+
+        /**
+         * Close the connections and the selector on the loop thread, which is the only one touching them,
+         * and wait for the loop to end.
+         */
+        void stop() {
+            if (thread.getState() == Thread.State.NEW) {
+                close();
+                return;
+            }
+            execute(this::close);
+            try {
+                thread.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        private void close() {
+            if (!selector.isOpen()) {
+                return;
+            }
+            for (SelectionKey key : selector.keys()) {
+                closeQuietly(key.channel());
+            }
+            for (SocketChannel channel; (channel = accepted.poll()) != null; ) {
+                closeQuietly(channel);
+            }
+            closeQuietly(selector);
+        }
+    }
+
+    private static void closeQuietly(Closeable closeable) {
+        try {
+            closeable.close();
+        } catch (IOException e) {
+            // nothing to do, we are done with it anyway
+        }
+    }
+
+    private class Connection implements AsyncIO {
+        private final SocketChannel channel;
+        private final EventLoop loop;
+        private final AsyncGameRunner runner;
+        private final byte[] line = new byte[StreamIO.MAX_LINE_LENGTH];
+        private ByteBuffer output = EMPTY; // in write mode, allocated when there is something to write
+        private SelectionKey key;
+        private int lineLength;
+        private boolean closing;
+
+        Connection(SocketChannel channel, EventLoop loop) {
+            this.channel = channel;
+            this.loop = loop;
+            Game game = new Game(aiStrategies.get());
+            game.speculate(aiExecutor);
+            this.runner = new AsyncGameRunner(this, game, this::resume);
+        }
+
+        // input is handled on the loop, where reading resumes once the runner stops waiting for the AI move
+        private void resume(Runnable handleInput) {
+            loop.execute(() -> {
+                try {
+                    handleInput.run();
+                } catch (RuntimeException e) { // e.g. the strategy failed, drop the game but not the loop
+                    disconnect();
+                    return;
+                }
+                if (!runner.isWaiting() && key.isValid()) {
+                    key.interestOps(key.interestOps() | SelectionKey.OP_READ);
+                }
+            });
+        }
+
+        void read(ByteBuffer buffer) {
+            try {
+                buffer.clear();
+                int read = channel.read(buffer);
+                if (read < 0) {
+                    disconnect();
+                    return;
+                }
+                buffer.flip();
+                while (buffer.hasRemaining() && !closing) {
+                    byte b = buffer.get();
+                    if (b == '\n') {
+                        int length = lineLength > 0 && line[lineLength - 1] == '\r' ? lineLength - 1 : lineLength;
+                        lineLength = 0;
+                        runner.onInput(new String(line, 0, length, StandardCharsets.UTF_8));
+                    } else if (lineLength < line.length) {
+                        line[lineLength++] = b;
+                    }
+                }
+                if (runner.isWaiting() && key.isValid()) { // don't take more input than the rest of the buffer
+                    key.interestOps(key.interestOps() & ~SelectionKey.OP_READ);
+                }
+            } catch (IOException e) {
+                disconnect();
+            }
+        }
+
+        @Override
+        public void write(String message) {
+            write(message.getBytes(StandardCharsets.UTF_8));
+        }
+
+        @Override
+        public void write(byte[] message) {
+            if (!channel.isOpen()) {
+                return;
+            }
+            int required = output.position() + message.length + 1;
+            if (required > MAX_PENDING_OUTPUT) { // the client doesn't read what we write
+                disconnect();
+                return;
+            }
+            if (required > output.capacity()) {
+                ByteBuffer grown = ByteBuffer.allocate(Math.min(MAX_PENDING_OUTPUT, Math.max(INITIAL_OUTPUT_SIZE,
+                        Integer.highestOneBit(required - 1) << 1)));
+                output.flip();
+                output = grown.put(output);
+            }
+            output.put(message).put(NEWLINE);
+        }
+
+        @Override
+        public void close() {
+            closing = true;
+            flush();
+        }
+
+        @Override
+        public void flush() {
+            if (!channel.isOpen()) {
+                return;
+            }
+            try {
+                if (output.position() > 0) {
+                    output.flip();
+                    channel.write(output);
+                    if (output.hasRemaining()) { // socket buffer is full, wait until we can write again
+                        output.compact();
+                        key.interestOps(readInterest() | SelectionKey.OP_WRITE);
+                        return;
+                    }
+                    // keep the usual buffer for the next reply, but don't hold on to one grown by a burst
+                    output = output.capacity() > INITIAL_OUTPUT_SIZE ? EMPTY : (ByteBuffer) output.clear();
+                }
+                if (closing) {
+                    disconnect();
+                } else if (key.isValid()) {
+                    key.interestOps(readInterest());
+                }
+            } catch (IOException e) {
+                disconnect();
+            }
+        }
+
+        private int readInterest() {
+            return runner.isWaiting() ? 0 : SelectionKey.OP_READ;
+        }
+
+        private void disconnect() {
+            if (!channel.isOpen()) {
+                return;
+            }
+            closing = true;
+            output = EMPTY;
+            closeQuietly(channel);
+            connections.decrementAndGet();
+        }
+    }
+
+    /**
+     * Start the server. AI models start from the prior in the {@value ModelSnapshots#PRIOR_PROPERTY} system property, if any.
+     * @param args port (8081 by default) and number of event loops
+     */
+    public static void main(String[] args) throws IOException {
+        Supplier<LearningStrategy> strategies =
+                ModelSnapshots.withConfiguredPrior(() -> Strategies.markovChain(Strategies.random()));
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : 8081;
+        int threads = args.length > 1 ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+        NioGameServer server = new NioGameServer(port, threads,
+                () -> Metrics.global().timed("markovChain", strategies.get()));
+        server.start();
+        System.out.println("Listening on port " + server.getPort());
+    }
+}
@@ -0,0 +1,181 @@
+package max.rindon.rps.sim;
+
+import max.rindon.rps.ai.RandomSources;
+import max.rindon.rps.ai.Strategies;
+import max.rindon.rps.ai.Strategy;
+import max.rindon.rps.domain.Move;
+import max.rindon.rps.domain.MoveHistory;
+import max.rindon.rps.persistence.RoundLogReader;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * Searches the space of {@link Expression}s for the strategy scoring best against a set of opponents.
+ * <p> The search is a beam search: we score all basic strategies, then repeatedly combine the best expressions found
+ * so far (the beam) with each other and with the basic strategies, up to the maximum depth, keeping the best ones.
+ * The fitness of an expression is its {@link Standing#score()} over all matches against all opponents.
+ * Fitness is memoized by the canonical expression, so a tree that comes up again, e.g. as a subtree
+ * or as the same strategy written another way, is scored once per search.
+ * <p> Like in a {@link Tournament}, matches are spread over a fork-join pool and seeded from the master seed.
+ * Every candidate plays the same matches with the same seeds, so differences in scores come from the strategies
+ * and not from luck, and the results don't depend on the number of threads.
+ */
+public class AutoTuner {
+
+    private final int matchesPerOpponent;
+    private final long roundsPerMatch;
+    private final List<String> names = new ArrayList<>();
+    private final List<StrategyFactory> opponents = new ArrayList<>();
+
+    public AutoTuner(int matchesPerOpponent, long roundsPerMatch) {
+        if (matchesPerOpponent < 1 || roundsPerMatch < 1) {
+            throw new IllegalArgumentException("Number of matches and rounds should be positive");
+        }
+        this.matchesPerOpponent = matchesPerOpponent;
+        this.roundsPerMatch = roundsPerMatch;
+    }
+
+    /**
+     * Register an opponent to score candidates against.
+     * @param name unique opponent name
+     * @param factory creates opponent strategy for each match
+     * @return this tuner
+     */
+    public AutoTuner register(String name, StrategyFactory factory) {
+        if (names.contains(name)) {
+            throw new IllegalArgumentException("Opponent is already registered: " + name);
+        }
+        names.add(name);
+        opponents.add(factory);
+        return this;
+    }
+
+    /**
+     * Register a recorded player as an opponent, replaying the player moves of the game (over and over if needed).
+     * @param log round log of the game
+     * @return this tuner
+     */
+    public AutoTuner registerRecorded(Path log) throws IOException {
+        MoveHistory moves = new MoveHistory();
+        RoundLogReader.replay(log, (playerMove, aiMove, outcome) -> moves.append(playerMove));
+        if (moves.isEmpty()) {
+            throw new IOException("No rounds in " + log);
+        }
+        return register("recorded " + log, gen -> Strategies.sequence(moves));
+    }
+
+    /**
+     * Search for the best expression.
+     * @param maxDepth maximum depth of the expressions, 1 to score basic strategies only
+     * @param beamWidth number of best expressions to combine further
+     * @param masterSeed seed all match generators are derived from
+     * @param parallelism number of threads to use
+     * @return standings of all expressions scored, named by the expression, best first
+     */
+    public List<Standing> search(int maxDepth, int beamWidth, long masterSeed, int parallelism) {
+        if (maxDepth < 1 || beamWidth < 1) {
+            throw new IllegalArgumentException("Depth and beam width should be positive");
+        }
+        if (opponents.isEmpty()) {
+            throw new IllegalStateException("No opponents to score against");
+        }
+        int matches = opponents.size() * matchesPerOpponent;
+        long[] seeds = new long[matches];
+        SplittableRandom master = new SplittableRandom(masterSeed);
+        for (int i = 0; i < matches; i++) {
+            seeds[i] = master.nextLong();
+        }
+
+        Map<Expression, Standing> fitness = new HashMap<>();
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try {
+            score(Expression.leaves(), seeds, fitness, pool);
+            for (int depth = 2; depth <= maxDepth; depth++) {
+                Set<Expression> parts = new LinkedHashSet<>(best(fitness, beamWidth));
+                parts.addAll(Expression.leaves());
+                Set<Expression> candidates = new LinkedHashSet<>();
+                for (Expression.Combinator combinator : Expression.Combinator.values()) {
+                    for (Expression first : parts) {
+                        for (Expression second : parts) {
+                            Expression candidate = Expression.of(combinator, first, second);
+                            if (candidate.getDepth() <= maxDepth && !fitness.containsKey(candidate)) {
+                                candidates.add(candidate);
+                            }
+                        }
+                    }
+                }
+                score(new ArrayList<>(candidates), seeds, fitness, pool);
+            }
+        } finally {
+            pool.shutdown();
+        }
+        return best(fitness, fitness.size()).stream().map(fitness::get).collect(Collectors.toList());
+    }
+
+    private void score(List<Expression> candidates, long[] seeds, Map<Expression, Standing> fitness, ForkJoinPool pool) {
+        int matches = seeds.length;
+        MatchResult[] results = pool.submit(() -> IntStream.range(0, candidates.size() * matches)
+                .parallel()
+                .mapToObj(i -> play(candidates.get(i / matches), i % matches, seeds[i % matches]))
+                .toArray(MatchResult[]::new))
+                .join();
+        for (int c = 0; c < candidates.size(); c++) {
+            Standing standing = new Standing(candidates.get(c).toString(), 0, 0, 0);
+            for (int i = c * matches; i < (c + 1) * matches; i++) {
+                standing = standing.plus(results[i].aiWins, results[i].aiLosses, results[i].draws);
+            }
+            fitness.put(candidates.get(c), standing);
+        }
+    }
+
+    private MatchResult play(Expression candidate, int match, long seed) {
+        Strategy ai = candidate.getFactory().create(RandomSources.splittable(RandomSources.seed(seed, 0)));
+        Strategy opponent = opponents.get(match / matchesPerOpponent)
+                .create(RandomSources.splittable(RandomSources.seed(seed, 1)));
+        return Simulation.play(ai, opponent, roundsPerMatch);
+    }
+
+    // best expressions first, ties broken in favour of simpler ones, then by text so that the order is reproducible
+    private static List<Expression> best(Map<Expression, Standing> fitness, int limit) {
+        return fitness.keySet().stream()
+                .sorted(Comparator.comparingDouble((Expression e) -> fitness.get(e).score()).reversed()
+                        .thenComparingInt(Expression::getDepth)
+                        .thenComparingInt(e -> e.toString().length())
+                        .thenComparing(Expression::toString))
+                .limit(limit)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Search for the strategy scoring best against typical bots and recorded players, and print the best ones.
+     * @param args maximum depth, beam width, rounds per match, master seed, number of threads,
+     *             followed by round logs of recorded players
+     */
+    public static void main(String[] args) throws IOException {
+        int depth = args.length > 0 ? Integer.parseInt(args[0]) : 3;
+        int beam = args.length > 1 ? Integer.parseInt(args[1]) : 8;
+        long rounds = args.length > 2 ? Long.parseLong(args[2]) : 1_000;
+        long seed = args.length > 3 ? Long.parseLong(args[3]) : 42;
+        int threads = args.length > 4 ? Integer.parseInt(args[4]) : Runtime.getRuntime().availableProcessors();
+
+        AutoTuner tuner = new AutoTuner(4, rounds)
+                .register("rock", gen -> Strategies.ALWAYS_ROCK)
+                .register("cycle", gen -> Strategies.sequence(Arrays.asList(Move.ROCK, Move.PAPER, Move.SCISSORS)))
+                .register("echo", gen -> Strategies.echo(Strategies.random(gen)))
+                .register("lastLost", gen -> Strategies.lastLost(Strategies.random(gen)))
+                .register("beatMostFrequent(20)", gen -> Strategies.beatMostFrequent(Strategies.random(gen), 20))
+                .register("markovChain", gen -> Strategies.markovChain(Strategies.random(gen), gen));
+        for (int i = 5; i < args.length; i++) {
+            tuner.registerRecorded(Paths.get(args[i]));
+        }
+        List<Standing> standings = tuner.search(depth, beam, seed, threads);
+        System.out.print(Tournament.render(standings.subList(0, Math.min(10, standings.size()))));
+        System.out.println("Best: " + standings.get(0).name);
+    }
+}
@@ -0,0 +1,133 @@
+package max.rindon.rps.sim;
+
+import max.rindon.rps.ai.RandomSource;
+import max.rindon.rps.ai.Strategies;
+import max.rindon.rps.ai.Strategy;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Strategy written as a tree of {@link Strategies} combinators over basic strategies, e.g. {@code toss(markovChain, echo)}.
+ * <p> Expressions are in a canonical form, so that trees making the same strategy have the same text:
+ * combining an expression with itself gives the expression back, and arguments of symmetric combinators are sorted.
+ * The text reads as the {@link Strategies} calls to make, with basic strategies falling back to random moves
+ * when they have no history to work with.
+ */
+public final class Expression {
+
+    /**
+     * Combinators of two strategies.
+     */
+    public enum Combinator {
+        TOSS("toss", true) {
+            @Override
+            Strategy apply(Strategy first, Strategy second, RandomSource gen) {
+                return Strategies.toss(first, second, gen);
+            }
+        },
+        ALTERNATE("alternate", false) {
+            @Override
+            Strategy apply(Strategy first, Strategy second, RandomSource gen) {
+                return Strategies.alternate(first, second);
+            }
+        },
+        FIRST_THEN_OTHER("firstThenOther", false) {
+            @Override
+            Strategy apply(Strategy first, Strategy second, RandomSource gen) {
+                return Strategies.firstThenOther(first, second);
+            }
+        };
+
+        private final String name;
+        private final boolean symmetric; // whether the order of arguments doesn't change the odds
+
+        Combinator(String name, boolean symmetric) {
+            this.name = name;
+            this.symmetric = symmetric;
+        }
+
+        abstract Strategy apply(Strategy first, Strategy second, RandomSource gen);
+    }
+
+    private static final List<Expression> LEAVES = Collections.unmodifiableList(Arrays.asList(
+            new Expression("random", Strategies::random),
+            new Expression("rock", gen -> Strategies.ALWAYS_ROCK),
+            new Expression("paper", gen -> Strategies.ALWAYS_PAPER),
+            new Expression("scissors", gen -> Strategies.ALWAYS_SCISSORS),
+            new Expression("echo", gen -> Strategies.echo(Strategies.random(gen))),
+            new Expression("lastLost", gen -> Strategies.lastLost(Strategies.random(gen))),
+            new Expression("beatMostFrequent", gen -> Strategies.beatMostFrequent(Strategies.random(gen))),
+            new Expression("beatMostFrequent(20)", gen -> Strategies.beatMostFrequent(Strategies.random(gen), 20)),
+            new Expression("markovChain", gen -> Strategies.markovChain(Strategies.random(gen), gen)),
+            new Expression("variableOrderMarkov(4)", gen -> Strategies.variableOrderMarkov(4, Strategies.random(gen)))));
+
+    private final String text;
+    private final int depth;
+    private final StrategyFactory factory;
+
+    private Expression(String text, StrategyFactory factory) {
+        this(text, 1, factory);
+    }
+
+    private Expression(String text, int depth, StrategyFactory factory) {
+        this.text = text;
+        this.depth = depth;
+        this.factory = factory;
+    }
+
+    /**
+     * @return basic strategies, the leaves of expression trees
+     */
+    public static List<Expression> leaves() {
+        return LEAVES;
+    }
+
+    /**
+     * @param combinator combinator to apply
+     * @param first first argument
+     * @param second second argument
+     * @return canonical expression combining the arguments
+     */
+    public static Expression of(Combinator combinator, Expression first, Expression second) {
+        if (first.text.equals(second.text)) {
+            return first;
+        }
+        if (combinator.symmetric && first.text.compareTo(second.text) > 0) {
+            return of(combinator, second, first);
+        }
+        return new Expression(combinator.name + "(" + first.text + ", " + second.text + ")",
+                1 + Math.max(first.depth, second.depth),
+                gen -> combinator.apply(first.factory.create(gen), second.factory.create(gen), gen));
+    }
+
+    /**
+     * @return height of the tree, 1 for a basic strategy
+     */
+    public int getDepth() {
+        return depth;
+    }
+
+    /**
+     * @return factory of the strategy, all parts of which draw random numbers from the given generator
+     */
+    public StrategyFactory getFactory() {
+        return factory;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return this == o || (o instanceof Expression && text.equals(((Expression) o).text));
+    }
+
+    @Override
+    public int hashCode() {
+        return text.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return text;
+    }
+}
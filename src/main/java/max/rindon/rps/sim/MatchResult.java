@@ -0,0 +1,59 @@
+package max.rindon.rps.sim;
+
+import java.util.Locale;
+
+/**
+ * Result of a headless match, from the AI point of view.
+ */
+public final class MatchResult {
+    public final long aiWins;
+    public final long aiLosses;
+    public final long draws;
+    public final long nanos; // time spent playing
+
+    public MatchResult(long aiWins, long aiLosses, long draws, long nanos) {
+        this.aiWins = aiWins;
+        this.aiLosses = aiLosses;
+        this.draws = draws;
+        this.nanos = nanos;
+    }
+
+    public long rounds() {
+        return aiWins + aiLosses + draws;
+    }
+
+    public double aiWinRate() {
+        return rate(aiWins);
+    }
+
+    public double aiLossRate() {
+        return rate(aiLosses);
+    }
+
+    public double drawRate() {
+        return rate(draws);
+    }
+
+    public double roundsPerSecond() {
+        return nanos == 0 ? 0 : rounds() * 1e9 / nanos;
+    }
+
+    /**
+     * @param other result to add
+     * @return combined result of both matches
+     */
+    public MatchResult plus(MatchResult other) {
+        return new MatchResult(aiWins + other.aiWins, aiLosses + other.aiLosses, draws + other.draws, nanos + other.nanos);
+    }
+
+    private double rate(long count) {
+        long rounds = rounds();
+        return rounds == 0 ? 0 : (double) count / rounds;
+    }
+
+    @Override
+    public String toString() {
+        return String.format(Locale.ROOT, "win %.4f, loss %.4f, draw %.4f (%d rounds, %.0f rounds/s)",
+                aiWinRate(), aiLossRate(), drawRate(), rounds(), roundsPerSecond());
+    }
+}
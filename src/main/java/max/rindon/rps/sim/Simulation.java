@@ -0,0 +1,124 @@
+package max.rindon.rps.sim;
+
+import max.rindon.rps.ai.Strategies;
+import max.rindon.rps.ai.Strategy;
+import max.rindon.rps.domain.Game;
+import max.rindon.rps.domain.Move;
+import max.rindon.rps.domain.MoveHistory;
+import max.rindon.rps.domain.Round;
+import max.rindon.rps.persistence.Corpus;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Headless matches between strategies, without any rendering or IO.
+ * <p> The AI plays a {@link Game} as usual, while its opponent is another strategy
+ * which sees the history of AI moves the same way the AI sees the history of its opponent's moves.
+ * Recorded or synthetic opponents can be plugged in as strategies too, e.g. {@link Strategies#sequence(List)}.
+ */
+public class Simulation {
+
+    private Simulation() {}
+
+    /**
+     * Play a match between two strategies.
+     * @param ai strategy of the AI
+     * @param opponent strategy of the opponent
+     * @param rounds number of rounds to play
+     * @return result of the match
+     */
+    public static MatchResult play(Strategy ai, Strategy opponent, long rounds) {
+        Game game = new Game(ai);
+        MoveHistory aiMoves = new MoveHistory();
+        List<Move> aiMovesView = Collections.unmodifiableList(aiMoves);
+        long aiWins = 0;
+        long aiLosses = 0;
+        long start = System.nanoTime();
+        for (long i = 0; i < rounds; i++) {
+            Round round = game.playRound(opponent.makeMove(aiMovesView));
+            aiMoves.append(round.aiMove);
+            switch (round.outcome) { // outcome is given from the opponent point of view
+                case WIN:
+                    aiLosses++;
+                    break;
+                case LOSS:
+                    aiWins++;
+                    break;
+                default:
+                    break;
+            }
+        }
+        long nanos = System.nanoTime() - start;
+        return new MatchResult(aiWins, aiLosses, rounds - aiWins - aiLosses, nanos);
+    }
+
+    /**
+     * Play the AI against every remaining session of the corpus, each session to its end.
+     * Every session is another player, so it is played by a new AI.
+     * @param ai creates the AI strategy for each session
+     * @param corpus corpus of recorded sessions
+     * @return combined result of all sessions
+     */
+    public static MatchResult replay(Supplier<Strategy> ai, Corpus corpus) throws IOException {
+        MatchResult result = new MatchResult(0, 0, 0, 0);
+        while (corpus.next()) {
+            result = result.plus(play(ai.get(), corpus.opponent(), corpus.session().size()));
+        }
+        return result;
+    }
+
+    /**
+     * Play some candidate AIs against typical opponents and print the results.
+     * @param args number of rounds per match, 1 000 000 by default, or a corpus of recorded sessions to replay
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length > 0 && Files.isRegularFile(Paths.get(args[0]))) {
+            replayCorpus(args[0]);
+            return;
+        }
+        long rounds = args.length > 0 ? Long.parseLong(args[0]) : 1_000_000;
+
+        Map<String, Strategy> opponents = new LinkedHashMap<>();
+        opponents.put("random", Strategies.random());
+        opponents.put("rock", Strategies.ALWAYS_ROCK);
+        opponents.put("cycle", Strategies.sequence(Arrays.asList(Move.ROCK, Move.PAPER, Move.SCISSORS)));
+        opponents.put("echo", Strategies.echo(Strategies.random()));
+        opponents.put("beatMostFrequent", Strategies.beatMostFrequent(Strategies.random()));
+
+        for (Map.Entry<String, Strategy> opponent : opponents.entrySet()) {
+            Map<String, Strategy> candidates = new LinkedHashMap<>();
+            candidates.put("markovChain", Strategies.markovChain(Strategies.random()));
+            candidates.put("variableOrderMarkov(4)", Strategies.variableOrderMarkov(4, Strategies.random()));
+            candidates.put("beatMostFrequent(20)", Strategies.beatMostFrequent(Strategies.random(), 20));
+            candidates.put("alternate(markovChain, lastLost)", Strategies.alternate(
+                    Strategies.markovChain(Strategies.random()), Strategies.lastLost(Strategies.random())));
+            candidates.put("toss(markovChain, echo)", Strategies.toss(
+                    Strategies.markovChain(Strategies.random()), Strategies.echo(Strategies.random())));
+
+            for (Map.Entry<String, Strategy> candidate : candidates.entrySet()) {
+                MatchResult result = play(candidate.getValue(), opponent.getValue(), rounds);
+                System.out.println(candidate.getKey() + " vs " + opponent.getKey() + ": " + result);
+            }
+        }
+    }
+
+    private static void replayCorpus(String path) throws IOException {
+        Map<String, Supplier<Strategy>> candidates = new LinkedHashMap<>();
+        candidates.put("markovChain", () -> Strategies.markovChain(Strategies.random()));
+        candidates.put("variableOrderMarkov(4)", () -> Strategies.variableOrderMarkov(4, Strategies.random()));
+        candidates.put("beatMostFrequent(20)", () -> Strategies.beatMostFrequent(Strategies.random(), 20));
+        for (Map.Entry<String, Supplier<Strategy>> candidate : candidates.entrySet()) {
+            try (Corpus corpus = Corpus.open(Paths.get(path))) {
+                System.out.println(candidate.getKey() + " vs " + path + ": " + replay(candidate.getValue(), corpus));
+            }
+        }
+    }
+}
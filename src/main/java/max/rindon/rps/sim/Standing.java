@@ -0,0 +1,62 @@
+package max.rindon.rps.sim;
+
+import java.util.Objects;
+
+/**
+ * Rounds won, lost and drawn by a tournament entrant over all its matches.
+ */
+public final class Standing {
+    public final String name;
+    public final long wins;
+    public final long losses;
+    public final long draws;
+
+    public Standing(String name, long wins, long losses, long draws) {
+        this.name = name;
+        this.wins = wins;
+        this.losses = losses;
+        this.draws = draws;
+    }
+
+    public long rounds() {
+        return wins + losses + draws;
+    }
+
+    /**
+     * @return rounds won minus rounds lost per round played
+     */
+    public double score() {
+        long rounds = rounds();
+        return rounds == 0 ? 0 : (double) (wins - losses) / rounds;
+    }
+
+    Standing plus(long wins, long losses, long draws) {
+        return new Standing(name, this.wins + wins, this.losses + losses, this.draws + draws);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        Standing standing = (Standing) o;
+        return wins == standing.wins &&
+                losses == standing.losses &&
+                draws == standing.draws &&
+                name.equals(standing.name);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(name, wins, losses, draws);
+    }
+
+    @Override
+    public String toString() {
+        return "Standing{" +
+                "name='" + name + '\'' +
+                ", wins=" + wins +
+                ", losses=" + losses +
+                ", draws=" + draws +
+                '}';
+    }
+}
@@ -0,0 +1,17 @@
+package max.rindon.rps.sim;
+
+import max.rindon.rps.ai.RandomSource;
+import max.rindon.rps.ai.Strategy;
+
+/**
+ * Creates a fresh strategy for every match, so that stateful strategies don't share what they learned.
+ */
+@FunctionalInterface
+public interface StrategyFactory {
+
+    /**
+     * @param gen random number generator the strategy should use, to make matches reproducible
+     * @return new strategy
+     */
+    Strategy create(RandomSource gen);
+}
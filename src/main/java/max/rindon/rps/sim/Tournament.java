@@ -0,0 +1,147 @@
+package max.rindon.rps.sim;
+
+import max.rindon.rps.ai.RandomSources;
+import max.rindon.rps.ai.Strategies;
+import max.rindon.rps.ai.Strategy;
+import max.rindon.rps.domain.Move;
+
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * Round-robin tournament between registered strategies.
+ * <p> Every pair of entrants plays a number of independent matches (taking turns to be the AI of the {@link Simulation}).
+ * Matches are spread over a fork-join pool. Each match gets its own random number generators,
+ * seeded from the master seed by the match index before any match starts,
+ * so the results only depend on the master seed and not on the number of threads or the order matches finish in.
+ * For this to hold, strategies must draw random numbers only from the generator given to their {@link StrategyFactory}.
+ */
+public class Tournament {
+
+    private final int matchesPerPairing;
+    private final long roundsPerMatch;
+    private final List<String> names = new ArrayList<>();
+    private final List<StrategyFactory> factories = new ArrayList<>();
+
+    public Tournament(int matchesPerPairing, long roundsPerMatch) {
+        if (matchesPerPairing < 1 || roundsPerMatch < 1) {
+            throw new IllegalArgumentException("Number of matches and rounds should be positive");
+        }
+        this.matchesPerPairing = matchesPerPairing;
+        this.roundsPerMatch = roundsPerMatch;
+    }
+
+    /**
+     * Register an entrant.
+     * @param name unique entrant name
+     * @param factory creates entrant strategy for each match
+     * @return this tournament
+     */
+    public Tournament register(String name, StrategyFactory factory) {
+        if (names.contains(name)) {
+            throw new IllegalArgumentException("Entrant is already registered: " + name);
+        }
+        names.add(name);
+        factories.add(factory);
+        return this;
+    }
+
+    /**
+     * Play all matches.
+     * @param masterSeed seed all match generators are derived from
+     * @param parallelism number of threads to use
+     * @return standings of all entrants, best first
+     */
+    public List<Standing> run(long masterSeed, int parallelism) {
+        int entrants = names.size();
+        int pairings = entrants * (entrants - 1) / 2;
+        int matches = pairings * matchesPerPairing;
+        int[] firsts = new int[matches];
+        int[] seconds = new int[matches];
+        long[] seeds = new long[matches];
+        SplittableRandom master = new SplittableRandom(masterSeed);
+        int match = 0;
+        for (int first = 0; first < entrants; first++) {
+            for (int second = first + 1; second < entrants; second++) {
+                for (int i = 0; i < matchesPerPairing; i++, match++) {
+                    // take turns to be the AI
+                    firsts[match] = i % 2 == 0 ? first : second;
+                    seconds[match] = i % 2 == 0 ? second : first;
+                    seeds[match] = master.nextLong();
+                }
+            }
+        }
+
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        MatchResult[] results;
+        try {
+            results = pool.submit(() -> IntStream.range(0, matches)
+                    .parallel()
+                    .mapToObj(i -> play(factories.get(firsts[i]), factories.get(seconds[i]), seeds[i]))
+                    .toArray(MatchResult[]::new))
+                    .join();
+        } finally {
+            pool.shutdown();
+        }
+
+        Standing[] standings = new Standing[entrants];
+        for (int i = 0; i < entrants; i++) {
+            standings[i] = new Standing(names.get(i), 0, 0, 0);
+        }
+        for (int i = 0; i < matches; i++) {
+            MatchResult result = results[i];
+            standings[firsts[i]] = standings[firsts[i]].plus(result.aiWins, result.aiLosses, result.draws);
+            standings[seconds[i]] = standings[seconds[i]].plus(result.aiLosses, result.aiWins, result.draws);
+        }
+        return Arrays.stream(standings)
+                .sorted(Comparator.comparingDouble(Standing::score).reversed())
+                .collect(Collectors.toList());
+    }
+
+    private MatchResult play(StrategyFactory ai, StrategyFactory opponent, long seed) {
+        Strategy aiStrategy = ai.create(RandomSources.splittable(RandomSources.seed(seed, 0)));
+        Strategy opponentStrategy = opponent.create(RandomSources.splittable(RandomSources.seed(seed, 1)));
+        return Simulation.play(aiStrategy, opponentStrategy, roundsPerMatch);
+    }
+
+    /**
+     * Render standings as a league table.
+     * @param standings standings to render
+     * @return league table
+     */
+    public static String render(List<Standing> standings) {
+        StringBuilder sb = new StringBuilder(String.format(Locale.ROOT, "%-4s %-40s %12s %12s %12s %8s%n",
+                "#", "Strategy", "Won", "Lost", "Drawn", "Score"));
+        int place = 1;
+        for (Standing standing : standings) {
+            sb.append(String.format(Locale.ROOT, "%-4d %-40s %12d %12d %12d %8.4f%n",
+                    place++, standing.name, standing.wins, standing.losses, standing.draws, standing.score()));
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Run a tournament between the strategies we have and print the league table.
+     * @param args number of matches per pairing, rounds per match, master seed and number of threads
+     */
+    public static void main(String[] args) {
+        int matches = args.length > 0 ? Integer.parseInt(args[0]) : 10;
+        long rounds = args.length > 1 ? Long.parseLong(args[1]) : 10_000;
+        long seed = args.length > 2 ? Long.parseLong(args[2]) : 42;
+        int threads = args.length > 3 ? Integer.parseInt(args[3]) : Runtime.getRuntime().availableProcessors();
+
+        Tournament tournament = new Tournament(matches, rounds)
+                .register("random", Strategies::random)
+                .register("rock", gen -> Strategies.ALWAYS_ROCK)
+                .register("cycle", gen -> Strategies.sequence(Arrays.asList(Move.ROCK, Move.PAPER, Move.SCISSORS)))
+                .register("echo", gen -> Strategies.echo(Strategies.random(gen)))
+                .register("lastLost", gen -> Strategies.lastLost(Strategies.random(gen)))
+                .register("beatMostFrequent", gen -> Strategies.beatMostFrequent(Strategies.random(gen)))
+                .register("beatMostFrequent(20)", gen -> Strategies.beatMostFrequent(Strategies.random(gen), 20))
+                .register("markovChain", gen -> Strategies.markovChain(Strategies.random(gen), gen))
+                .register("variableOrderMarkov(4)", gen -> Strategies.variableOrderMarkov(4, Strategies.random(gen)));
+        System.out.print(render(tournament.run(seed, threads)));
+    }
+}
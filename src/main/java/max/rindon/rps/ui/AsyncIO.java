@@ -0,0 +1,13 @@
+package max.rindon.rps.ui;
+
+/**
+ * Non-blocking counterpart of {@link IO}.
+ * Writes are queued without waiting for them to complete, input is pushed to the reader as it arrives.
+ */
+public interface AsyncIO extends Output {
+
+    /**
+     * Close after all queued messages are written.
+     */
+    void close();
+}
@@ -1,5 +1,5 @@
 package max.rindon.rps.ui;
 
 public enum Command {
-    QUIT, STATS, HELP, PLAY
+    QUIT, STATS, METRICS, HELP, PLAY
 }
@@ -3,6 +3,10 @@ package max.rindon.rps.ui;
 import java.io.PrintStream;
 import java.util.Scanner;
 
+/**
+ * Console IO. Output is flushed before waiting for input,
+ * so that the print stream doesn't need to flush every line by itself.
+ */
 public class ConsoleIO implements IO {
 
     private final Scanner in;
@@ -15,6 +19,7 @@ public class ConsoleIO implements IO {
 
     @Override
     public String read() {
+        out.flush();
         return in.nextLine();
     }
 
@@ -23,6 +28,17 @@ public class ConsoleIO implements IO {
         out.println(message);
     }
 
+    @Override
+    public void write(byte[] message) {
+        out.write(message, 0, message.length);
+        out.println();
+    }
+
+    @Override
+    public void flush() {
+        out.flush();
+    }
+
     @Override
     public String prompt(String message) {
         write(message);
@@ -1,11 +1,9 @@
 package max.rindon.rps.ui;
 
-public interface IO {
+public interface IO extends Output {
 
     String read();
 
-    void write(String message);
-
     default String prompt(String message) {
         write(message);
         return read();
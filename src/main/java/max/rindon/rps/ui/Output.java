@@ -0,0 +1,24 @@
+package max.rindon.rps.ui;
+
+import java.nio.charset.StandardCharsets;
+
+@FunctionalInterface
+public interface Output {
+
+    void write(String message);
+
+    /**
+     * Write a message already encoded in UTF-8, such as a round pre-rendered by {@link UI}.
+     * Outputs which write bytes anyway should override this to skip decoding.
+     * @param message message without line separator, not to be modified as it may be shared
+     */
+    default void write(byte[] message) {
+        write(new String(message, StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Make sure the messages written so far reach the other side, outputs may buffer them until then.
+     */
+    default void flush() {
+    }
+}
@@ -0,0 +1,27 @@
+package max.rindon.rps.ui;
+
+import java.io.IOException;
+import java.net.Socket;
+
+/**
+ * Blocking IO over a socket, one line per message.
+ * Output is buffered and flushed before waiting for input, or when closing.
+ */
+public class SocketIO extends StreamIO {
+
+    private final Socket socket;
+
+    public SocketIO(Socket socket) throws IOException {
+        super(socket.getInputStream(), socket.getOutputStream());
+        this.socket = socket;
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            super.close();
+        } finally {
+            socket.close();
+        }
+    }
+}
@@ -0,0 +1,140 @@
+package max.rindon.rps.ui;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Blocking IO over byte streams, one line per message.
+ * <p> Output is collected in a buffer and reaches the stream only when the buffer is full,
+ * on {@link #flush()}, before waiting for input, or when closing.
+ * Pre-rendered messages are copied to the buffer as they are, without any encoding.
+ * <p> Input lines are bounded by {@link #MAX_LINE_LENGTH}, so that the other side can't make us buffer
+ * an endless line: the connection is closed when a line is longer.
+ */
+public class StreamIO implements IO, Closeable {
+
+    /**
+     * Longest line of input accepted, in characters, the same for all servers.
+     */
+    public static final int MAX_LINE_LENGTH = 128;
+
+    private static final int BUFFER_SIZE = 8192;
+    private static final byte NEWLINE = '\n';
+
+    private final BufferedReader in;
+    private final OutputStream out;
+    private final byte[] buffer = new byte[BUFFER_SIZE];
+    private final StringBuilder line = new StringBuilder(MAX_LINE_LENGTH);
+    private int length;
+
+    public StreamIO(InputStream in, OutputStream out) {
+        this.in = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+        this.out = out;
+    }
+
+    /**
+     * @return next line of input
+     * @throws UncheckedIOException if the stream is broken or closed by the other side,
+     * or if the line is too long, in which case the stream is closed
+     */
+    @Override
+    public String read() {
+        try {
+            flush();
+            return readLine();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public void write(String message) {
+        write(message.getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Override
+    public void write(byte[] message) {
+        try {
+            if (message.length >= buffer.length - length) {
+                drain();
+            }
+            if (message.length >= buffer.length) { // too long to be worth copying
+                out.write(message);
+            } else {
+                System.arraycopy(message, 0, buffer, length, message.length);
+                length += message.length;
+            }
+            buffer[length++] = NEWLINE; // there is always room left
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public void flush() {
+        try {
+            drain();
+            out.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            drain();
+            out.flush();
+        } finally {
+            try {
+                in.close();
+            } finally {
+                out.close();
+            }
+        }
+    }
+
+    // like BufferedReader.readLine, but lines end with \n only (a \r before it is dropped) and are bounded
+    private String readLine() throws IOException {
+        line.setLength(0);
+        for (int c = in.read(); c != '\n'; c = in.read()) {
+            if (c < 0) {
+                if (line.length() == 0) {
+                    throw new EOFException("Connection closed");
+                }
+                break; // last line without a newline
+            }
+            if (line.length() > MAX_LINE_LENGTH) { // there is room for a \r only
+                closeOnLongLine();
+            }
+            line.append((char) c);
+        }
+        int end = line.length();
+        if (end > 0 && line.charAt(end - 1) == '\r') {
+            end--;
+        }
+        if (end > MAX_LINE_LENGTH) {
+            closeOnLongLine();
+        }
+        return line.substring(0, end);
+    }
+
+    private void closeOnLongLine() throws IOException {
+        close();
+        throw new IOException("Line longer than " + MAX_LINE_LENGTH + " characters");
+    }
+
+    private void drain() throws IOException {
+        if (length > 0) {
+            out.write(buffer, 0, length);
+            length = 0;
+        }
+    }
+}
@@ -3,7 +3,9 @@ package max.rindon.rps.ui;
 import max.rindon.rps.domain.Move;
 import max.rindon.rps.domain.Outcome;
 import max.rindon.rps.domain.Round;
+import max.rindon.rps.metrics.Metrics;
 
+import java.nio.charset.StandardCharsets;
 import java.util.*;
 import java.util.stream.Stream;
 
@@ -57,9 +59,20 @@ public final class UI {
     private static final Map<String, Command> STRING_TO_COMMAND = unmodifiableMap(Stream.of(
             entry(":q", Command.QUIT),
             entry(":h", Command.HELP),
-            entry(":s", Command.STATS))
+            entry(":s", Command.STATS),
+            entry(":m", Command.METRICS))
             .collect(entriesToMap()));
 
+    private static final Move[] CHAR_TO_MOVE = new Move[128]; // ASCII lookup for batches of moves
+
+    static {
+        STRING_TO_MOVE.forEach((string, move) -> CHAR_TO_MOVE[string.charAt(0)] = move);
+    }
+
+    private static final char[] MOVE_TO_CHAR = {'r', 'p', 's'}; // indexed by move ordinal
+    private static final char[] OUTCOME_TO_CHAR = {'W', 'L', 'D'}; // indexed by outcome ordinal
+    private static final int BATCH_LABEL_LENGTH = 8;
+
     private static final Map<Outcome, String> OUTCOME_TO_MESSAGE = unmodifiableMap(Stream.of(
             entry(Outcome.WIN, "Greetings, you won!"),
             entry(Outcome.LOSS, "Sorry, you lost. Maybe next time!"),
@@ -75,12 +88,47 @@ public final class UI {
     public static final String HELP_MESSAGE = String.join(SEP,
             ":q - quit game",
             ":h - show help",
-            ":s - show game statistics");
+            ":s - show game statistics",
+            ":m - show engine metrics",
+            "rpsrr... - play several rounds at once");
+
+    // there are only 9 different rounds, render them once
+    private static final String[] ROUND_MESSAGES = new String[Round.CODES]; // indexed by round code
+    private static final byte[][] ROUND_BYTES = new byte[Round.CODES][];
+
+    static {
+        for (int code = 0; code < Round.CODES; code++) {
+            Round round = Round.of(code);
+            ROUND_MESSAGES[code] = String.join(SEP,
+                    MOVE_TO_ART.get(round.playerMove),
+                    ">=====VS=====<",
+                    MOVE_TO_ART.get(round.aiMove),
+                    outcome2Message(round.outcome),
+                    "-------------------------------------------------------");
+            ROUND_BYTES[code] = ROUND_MESSAGES[code].getBytes(StandardCharsets.UTF_8);
+        }
+    }
 
     public static Optional<Move> parseMove(String moveString) {
         return Optional.ofNullable(STRING_TO_MOVE.get(moveString));
     }
 
+    /**
+     * Parse a batch of moves, one character per move, e.g. {@code rpsrr}.
+     * @return moves, if every character is a move
+     */
+    public static Optional<Move[]> parseMoves(String movesString) {
+        Move[] moves = new Move[movesString.length()];
+        for (int i = 0; i < moves.length; i++) {
+            char c = movesString.charAt(i);
+            moves[i] = c < CHAR_TO_MOVE.length ? CHAR_TO_MOVE[c] : null;
+            if (moves[i] == null) {
+                return Optional.empty();
+            }
+        }
+        return Optional.of(moves);
+    }
+
     public static Optional<Command> parseCommand(String commandString) {
         return Optional.ofNullable(STRING_TO_COMMAND.get(commandString));
     }
@@ -90,12 +138,37 @@ public final class UI {
     }
 
     public static String renderRound(Round round) {
-        return String.join(SEP,
-                MOVE_TO_ART.get(round.playerMove),
-                ">=====VS=====<",
-                MOVE_TO_ART.get(round.aiMove),
-                outcome2Message(round.outcome),
-                "-------------------------------------------------------");
+        return ROUND_MESSAGES[round.code()];
+    }
+
+    /**
+     * Same as {@link #renderRound(Round)}, encoded in UTF-8.
+     * @return shared array, not to be modified
+     */
+    public static byte[] renderRoundBytes(Round round) {
+        return ROUND_BYTES[round.code()];
+    }
+
+    /**
+     * Render rounds played in a batch compactly, one character per round:
+     * player moves, AI moves and outcomes for the player (W, L or D).
+     * @param codes codes of the rounds, see {@link Round#code()}
+     */
+    public static String renderBatch(byte[] codes) {
+        StringBuilder sb = new StringBuilder(3 * (BATCH_LABEL_LENGTH + codes.length + SEP.length()));
+        sb.append("You:    ");
+        for (byte code : codes) {
+            sb.append(MOVE_TO_CHAR[Round.of(code).playerMove.ordinal()]);
+        }
+        sb.append(SEP).append("AI:     ");
+        for (byte code : codes) {
+            sb.append(MOVE_TO_CHAR[Round.of(code).aiMove.ordinal()]);
+        }
+        sb.append(SEP).append("Result: ");
+        for (byte code : codes) {
+            sb.append(OUTCOME_TO_CHAR[Round.of(code).outcome.ordinal()]);
+        }
+        return sb.toString();
     }
 
     public static String renderStatistics(Map<Outcome, Integer> statistics) {
@@ -105,6 +178,22 @@ public final class UI {
                            "Draw: " + statistics.get(Outcome.DRAW));
     }
 
+    public static String renderMetrics(Metrics metrics) {
+        List<String> lines = new ArrayList<>();
+        lines.add("Games: " + metrics.getGames() + ", rounds: " + metrics.getRounds()
+                + " (AI won " + metrics.getAiWins() + ", lost " + metrics.getAiLosses() + ", draws " + metrics.getDraws() + ")");
+        lines.add(String.format(Locale.ROOT, "Last %ds: %.1f rounds/s, AI win rate %.1f%%",
+                metrics.getWindowSeconds(), metrics.getRoundsPerSecond(), metrics.getAiWinRate() * 100));
+        lines.add(String.format(Locale.ROOT, "History: longest %d, %.1f rounds per game",
+                metrics.getLongestHistory(), metrics.getRoundsPerGame()));
+        metrics.getDecisionLatency().forEach((name, latency) -> lines.add(String.format(Locale.ROOT,
+                "%s: %d moves, median %dns, p99 %dns, max %dns", name, latency.getCount(),
+                latency.getValueAtPercentile(50), latency.getValueAtPercentile(99), latency.getMax())));
+        metrics.getBudgetCounts().forEach((name, counts) -> lines.add(String.format(Locale.ROOT,
+                "%s: %d moves, %d fell back", name, counts.getMoves(), counts.getFallbacks())));
+        return String.join(SEP, lines);
+    }
+
     public static String renderParseMoveError(String playerInput) {
         return PARSE_MOVE_MESSAGE + playerInput;
     }
@@ -1,20 +1,188 @@
 package max.rindon.rps.util;
 
+import max.rindon.rps.domain.Move;
+
 import java.util.List;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+import java.util.function.IntConsumer;
 import java.util.stream.IntStream;
 import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 public class Streams {
 
+    /**
+     * Longest window {@link #slidingCodes(List, int)} can encode in an int.
+     */
+    public static final int MAX_CODED_WINDOW = 19;
+
+    private static final int RADIX = Move.values().length;
+
     private Streams() {}
 
-    // replace with spliterator implementation?
+    /**
+     * Windows of consecutive elements, as list views, e.g. [a, b], [b, c], [c, d] for windows of 2 in [a, b, c, d].
+     * The stream is lazy and splits evenly, so it works well in parallel for random access lists.
+     * @param list list to slide over, not to be modified while the stream is in use
+     * @param size window size
+     * @return windows of the list, none if the list is shorter than a window
+     */
     public static <T> Stream<List<T>> sliding(List<T> list, int size) {
-        if (size > list.size()) {
-            return Stream.empty();
-        } else {
-            return IntStream.range(0, list.size() - size + 1)
-                    .mapToObj(start -> list.subList(start, start + size));
+        return StreamSupport.stream(new SlidingSpliterator<>(list, size, 0, windows(list, size)), false);
+    }
+
+    /**
+     * Same windows as {@link #sliding(List, int)}, but encoded as ints, base 3 over move ordinals,
+     * the first move being the most significant, e.g. [ROCK, PAPER, SCISSORS] is 0 * 9 + 1 * 3 + 2.
+     * A sequential stream doesn't allocate per window, it rolls the code along the moves.
+     * @param moves moves to slide over, not to be modified while the stream is in use
+     * @param size window size, up to {@value #MAX_CODED_WINDOW}
+     * @return codes of the windows, none if there are fewer moves than a window
+     */
+    public static IntStream slidingCodes(List<Move> moves, int size) {
+        if (size > MAX_CODED_WINDOW) {
+            throw new IllegalArgumentException("Windows of " + size + " moves don't fit in an int");
+        }
+        return StreamSupport.intStream(new SlidingCodeSpliterator(moves, size, 0, windows(moves, size)), false);
+    }
+
+    private static int windows(List<?> list, int size) {
+        if (size < 1) {
+            throw new IllegalArgumentException("Window size should be positive: " + size);
+        }
+        return Math.max(0, list.size() - size + 1);
+    }
+
+    /**
+     * Spliterator over the windows starting from {@code next} (inclusive) to {@code end} (exclusive).
+     */
+    private static final class SlidingSpliterator<T> implements Spliterator<List<T>> {
+        private final List<T> list;
+        private final int size;
+        private int next;
+        private final int end;
+
+        SlidingSpliterator(List<T> list, int size, int next, int end) {
+            this.list = list;
+            this.size = size;
+            this.next = next;
+            this.end = end;
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super List<T>> action) {
+            if (next >= end) {
+                return false;
+            }
+            action.accept(list.subList(next, next + size));
+            next++;
+            return true;
+        }
+
+        @Override
+        public void forEachRemaining(Consumer<? super List<T>> action) {
+            for (; next < end; next++) {
+                action.accept(list.subList(next, next + size));
+            }
+        }
+
+        @Override
+        public Spliterator<List<T>> trySplit() {
+            int middle = (next + end) >>> 1;
+            if (middle <= next) {
+                return null;
+            }
+            Spliterator<List<T>> prefix = new SlidingSpliterator<>(list, size, next, middle);
+            next = middle;
+            return prefix;
+        }
+
+        @Override
+        public long estimateSize() {
+            return end - next;
+        }
+
+        @Override
+        public int characteristics() {
+            return ORDERED | SIZED | SUBSIZED | NONNULL | IMMUTABLE;
+        }
+    }
+
+    /**
+     * Spliterator over the codes of the windows starting from {@code next} (inclusive) to {@code end} (exclusive).
+     * The code of a window is computed from scratch only for the first one, and then rolled.
+     */
+    private static final class SlidingCodeSpliterator implements Spliterator.OfInt {
+        private final List<Move> moves;
+        private final int size;
+        private final int modulus; // 3 ^ (size - 1), the weight of the first move of a window
+        private int next;
+        private final int end;
+        private int code = -1; // code of the window before next, -1 if not computed yet
+
+        SlidingCodeSpliterator(List<Move> moves, int size, int next, int end) {
+            this.moves = moves;
+            this.size = size;
+            int modulus = 1;
+            for (int i = 1; i < size; i++) {
+                modulus *= RADIX;
+            }
+            this.modulus = modulus;
+            this.next = next;
+            this.end = end;
+        }
+
+        @Override
+        public boolean tryAdvance(IntConsumer action) {
+            if (next >= end) {
+                return false;
+            }
+            action.accept(advance());
+            return true;
+        }
+
+        @Override
+        public void forEachRemaining(IntConsumer action) {
+            while (next < end) {
+                action.accept(advance());
+            }
+        }
+
+        private int advance() {
+            if (code < 0) {
+                code = 0;
+                for (int i = next; i < next + size; i++) {
+                    code = code * RADIX + moves.get(i).ordinal();
+                }
+            } else {
+                code = code % modulus * RADIX + moves.get(next + size - 1).ordinal();
+            }
+            next++;
+            return code;
+        }
+
+        @Override
+        public Spliterator.OfInt trySplit() {
+            int middle = (next + end) >>> 1;
+            if (middle <= next) {
+                return null;
+            }
+            SlidingCodeSpliterator prefix = new SlidingCodeSpliterator(moves, size, next, middle);
+            prefix.code = code; // the prefix carries on from where we are
+            next = middle;
+            code = -1;
+            return prefix;
+        }
+
+        @Override
+        public long estimateSize() {
+            return end - next;
+        }
+
+        @Override
+        public int characteristics() {
+            return ORDERED | SIZED | SUBSIZED | NONNULL | IMMUTABLE;
         }
     }
 }
@@ -1,13 +1,17 @@
 package max.rindon.rps;
 
 import max.rindon.rps.ai.Strategies;
+import max.rindon.rps.domain.Game;
+import max.rindon.rps.ui.AsyncIO;
 import max.rindon.rps.ui.IO;
 import max.rindon.rps.ui.UI;
 import org.junit.jupiter.api.Test;
 
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Queue;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -95,6 +99,68 @@ class GameRunnerTest {
         assertEquals(expectedOutput, output);
     }
 
+    @Test
+    void batch() {
+        TestIO io = new TestIO(Arrays.asList("rPs", "rx", ":q"));
+        new GameRunner(io, Strategies.ALWAYS_ROCK).run();
+        List<String> expectedOutput = Arrays.asList(
+                UI.WELCOME_MESSAGE,
+                UI.HELP_MESSAGE,
+                UI.MOVE_PROMPT_MESSAGE,
+                "You:    rps\n" +
+                "AI:     rrr\n" +
+                "Result: DWL",
+                UI.MOVE_PROMPT_MESSAGE,
+                UI.renderParseMoveError("rx"),
+                UI.MOVE_PROMPT_MESSAGE,
+                STATS
+        );
+        assertEquals(expectedOutput, io.output);
+    }
+
+    @Test
+    void asyncWaitsForAiMoveWithoutBlocking() {
+        Queue<Runnable> ai = new ArrayDeque<>();
+        Queue<Runnable> loop = new ArrayDeque<>();
+        Game game = new Game(Strategies.ALWAYS_ROCK);
+        game.speculate(ai::add);
+        TestAsyncIO io = new TestAsyncIO();
+        AsyncGameRunner runner = new AsyncGameRunner(io, game, loop::add);
+        runner.start();
+        runner.onInput("r");
+        runner.onInput(":q");
+        assertTrue(runner.isWaiting());
+        assertEquals(Arrays.asList(UI.WELCOME_MESSAGE, UI.HELP_MESSAGE, UI.MOVE_PROMPT_MESSAGE), io.output);
+
+        ai.remove().run(); // the AI move is in, input is handled back on the loop
+        assertEquals(3, io.output.size());
+        assertEquals(1, loop.size());
+        loop.remove().run();
+        assertEquals(Arrays.asList(UI.WELCOME_MESSAGE, UI.HELP_MESSAGE, UI.MOVE_PROMPT_MESSAGE,
+                ROUND_ONE, UI.MOVE_PROMPT_MESSAGE), io.output);
+        assertTrue(runner.isWaiting()); // for the next move computed ahead
+
+        ai.remove().run();
+        loop.remove().run();
+        assertEquals("You: 0\nAI: 0\nDraw: 1", io.output.get(io.output.size() - 1));
+        assertTrue(io.closed);
+    }
+
+    private static class TestAsyncIO implements AsyncIO {
+        private final List<String> output = new ArrayList<>();
+        private boolean closed;
+
+        @Override
+        public void write(String message) {
+            output.add(message);
+        }
+
+        @Override
+        public void close() {
+            closed = true;
+        }
+    }
+
     private static class TestIO implements IO {
         private final List<String> input;
         private int inputPosition;
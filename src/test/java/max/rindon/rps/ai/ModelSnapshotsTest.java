@@ -0,0 +1,157 @@
+package max.rindon.rps.ai;
+
+import max.rindon.rps.domain.Move;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.function.Supplier;
+
+import static java.util.Collections.singletonList;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ModelSnapshotsTest {
+
+    private static final RandomSource FIRST = bound -> 0;
+
+    // random sources are not part of the model, so they must not keep any state for strategies to play alike
+    private static List<Supplier<LearningStrategy>> strategies() {
+        return Arrays.asList(
+                () -> Strategies.beatMostFrequent(Strategies.ALWAYS_ROCK, 7),
+                () -> Strategies.beatMostFrequentDecayed(Strategies.ALWAYS_ROCK, 0.9),
+                () -> Strategies.markovChain(Strategies.ALWAYS_ROCK, bound -> bound / 2),
+                () -> Strategies.variableOrderMarkov(4, 20, Strategies.ALWAYS_ROCK),
+                () -> Strategies.ensemble(Arrays.asList(
+                        Strategies.markovChain(Strategies.ALWAYS_PAPER, bound -> bound - 1),
+                        Strategies.variableOrderMarkov(2, Strategies.ALWAYS_PAPER),
+                        Strategies.ALWAYS_SCISSORS), 0.8));
+    }
+
+    @Test
+    @DisplayName("A loaded model plays on exactly like the saved one")
+    void roundTrip() throws IOException {
+        Random random = new Random(7);
+        for (Supplier<LearningStrategy> factory : strategies()) {
+            LearningStrategy original = factory.get();
+            List<Move> history = new ArrayList<>();
+            for (int i = 0; i < 300; i++) {
+                original.makeMove(history);
+                history.add(Move.values()[random.nextInt(3)]);
+            }
+            original.makeMove(history);
+            LearningStrategy restored = factory.get();
+            restored.load(input(save(original)));
+
+            List<Move> copy = new ArrayList<>(history); // another list with the same moves continues the game
+            for (int i = 0; i < 100; i++) {
+                assertEquals(original.makeMove(history), restored.makeMove(copy));
+                Move move = Move.values()[random.nextInt(3)];
+                history.add(move);
+                copy.add(move);
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("Snapshots only load into the same kind of strategy")
+    void wrongKind() throws IOException {
+        byte[] markov = save(Strategies.markovChain(Strategies.ALWAYS_ROCK));
+        assertThrows(IOException.class, () -> Strategies.beatMostFrequent(Strategies.ALWAYS_ROCK).load(input(markov)));
+        byte[] order3 = save(Strategies.variableOrderMarkov(3, Strategies.ALWAYS_ROCK));
+        assertThrows(IOException.class, () -> Strategies.variableOrderMarkov(4, Strategies.ALWAYS_ROCK).load(input(order3)));
+        assertThrows(IOException.class, () -> Strategies.markovChain(Strategies.ALWAYS_ROCK).load(input(new byte[]{1, 2, 3})));
+    }
+
+    @Test
+    @DisplayName("A prior model learns a new history on top of what it knows")
+    void prior() throws IOException {
+        LearningStrategy trained = Strategies.markovChain(Strategies.ALWAYS_ROCK, FIRST);
+        trained.makeMove(Arrays.asList(Move.SCISSORS, Move.ROCK, Move.PAPER, Move.ROCK, Move.PAPER));
+        byte[] prior = save(trained);
+
+        LearningStrategy warm = Strategies.markovChain(Strategies.ALWAYS_ROCK, FIRST);
+        warm.loadPrior(input(prior));
+        // a fresh model would play randomly, the prior knows rock is followed by paper
+        assertEquals(Move.SCISSORS, warm.makeMove(singletonList(Move.ROCK)));
+
+        LearningStrategy frequency = Strategies.beatMostFrequent(Strategies.ALWAYS_ROCK);
+        frequency.makeMove(Arrays.asList(Move.PAPER, Move.PAPER, Move.ROCK));
+        LearningStrategy opening = Strategies.beatMostFrequent(Strategies.ALWAYS_ROCK);
+        opening.loadPrior(input(save(frequency)));
+        assertEquals(Move.SCISSORS, opening.makeMove(new ArrayList<>())); // beats the most frequent move before any is played
+    }
+
+    @Test
+    @DisplayName("Models are saved to files and new strategies start from a prior file")
+    void files() throws IOException {
+        Path file = Files.createTempFile("model", ".snapshot");
+        try {
+            LearningStrategy trained = Strategies.beatMostFrequent(Strategies.ALWAYS_ROCK);
+            trained.makeMove(Arrays.asList(Move.SCISSORS, Move.SCISSORS));
+            ModelSnapshots.save(trained, file);
+
+            LearningStrategy loaded = Strategies.beatMostFrequent(Strategies.ALWAYS_ROCK);
+            ModelSnapshots.load(loaded, file);
+            assertEquals(Move.ROCK, loaded.makeMove(Arrays.asList(Move.SCISSORS, Move.SCISSORS)));
+
+            Supplier<LearningStrategy> warm = ModelSnapshots.withPrior(
+                    () -> Strategies.beatMostFrequent(Strategies.ALWAYS_PAPER), file);
+            assertEquals(Move.ROCK, warm.get().makeMove(new ArrayList<>()));
+            assertEquals(Move.ROCK, warm.get().makeMove(singletonList(Move.PAPER)));
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    @Test
+    @DisplayName("A Markov chain prior costs the same to load however many moves it was learned from")
+    void compactPrior() throws IOException {
+        Path file = Files.createTempFile("prior", ".snapshot");
+        try {
+            LearningStrategy trained = Strategies.markovChain(Strategies.ALWAYS_ROCK, FIRST);
+            List<Move> history = new ArrayList<>();
+            for (int i = 0; i < 100_000; i++) { // rock is followed by paper, paper and scissors by rock
+                history.add(i % 2 == 0 ? Move.ROCK : Move.PAPER);
+            }
+            history.add(Move.SCISSORS);
+            history.add(Move.ROCK);
+            trained.makeMove(history);
+            ModelSnapshots.save(trained, file);
+
+            Supplier<LearningStrategy> warm = ModelSnapshots.withPrior(
+                    () -> Strategies.markovChain(Strategies.ALWAYS_ROCK, FIRST), file);
+            LearningStrategy strategy = warm.get();
+            assertTrue(save(strategy).length < 100);
+            assertEquals(Move.SCISSORS, strategy.makeMove(singletonList(Move.ROCK)));
+            assertEquals(Move.PAPER, strategy.makeMove(Arrays.asList(Move.ROCK, Move.SCISSORS)));
+        } finally {
+            Files.deleteIfExists(file);
+        }
+
+        byte[] corrupted = save(Strategies.markovChain(Strategies.ALWAYS_ROCK));
+        corrupted[corrupted.length - 4] = 0x7F; // the length of the last list, nowhere near the bytes left
+        assertThrows(IOException.class, () -> Strategies.markovChain(Strategies.ALWAYS_ROCK).load(input(corrupted)));
+    }
+
+    private static byte[] save(LearningStrategy strategy) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        strategy.save(new DataOutputStream(bytes));
+        return bytes.toByteArray();
+    }
+
+    private static DataInputStream input(byte[] snapshot) {
+        return new DataInputStream(new ByteArrayInputStream(snapshot));
+    }
+}
@@ -0,0 +1,123 @@
+package max.rindon.rps.ai;
+
+import max.rindon.rps.domain.Game;
+import max.rindon.rps.domain.Move;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class PopulationModelTest {
+
+    @Test
+    @DisplayName("Games feed the model concurrently without losing updates")
+    void concurrentGames() throws Exception {
+        PopulationModel population = new PopulationModel(2);
+        int games = 64;
+        int rounds = 1000;
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < games; i++) {
+                boolean tracked = i % 2 == 0;
+                futures.add(executor.submit(() -> {
+                    Game game = new Game(tracked ? Strategies.ALWAYS_ROCK
+                            : Strategies.population(population, 10, Strategies.ALWAYS_ROCK));
+                    if (tracked) {
+                        population.track(game);
+                    }
+                    for (int round = 0; round < rounds; round++) {
+                        game.playRound(round % 2 == 0 ? Move.ROCK : Move.PAPER);
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        assertEquals(games, population.openings(Move.ROCK));
+        long moves = (long) games * rounds;
+        long counted = 0;
+        for (Move move : Move.values()) {
+            counted += population.count(0, 0, move);
+        }
+        assertEquals(moves, counted);
+        // paper always follows rock: context of one move, rock is 0
+        assertEquals(0, population.count(1, Move.ROCK.ordinal(), Move.ROCK));
+        assertEquals(0, population.count(2, Move.PAPER.ordinal() * 3 + Move.ROCK.ordinal(), Move.SCISSORS));
+    }
+
+    @Test
+    @DisplayName("New players are predicted from the population until their own habits show")
+    void blending() {
+        PopulationModel population = new PopulationModel(1);
+        for (int player = 0; player < 10; player++) { // players open with rock, and follow rock with paper
+            new Game(Strategies.population(population, 5, Strategies.ALWAYS_ROCK))
+                    .playRounds(Move.ROCK, Move.PAPER, Move.ROCK, Move.PAPER, Move.ROCK);
+        }
+
+        Strategy strategy = Strategies.population(population, 5, Strategies.ALWAYS_ROCK);
+        List<Move> moves = new ArrayList<>();
+        assertEquals(Move.PAPER, strategy.makeMove(moves)); // beats the usual opening
+        moves.add(Move.ROCK);
+        assertEquals(Move.SCISSORS, strategy.makeMove(moves)); // expects paper after rock
+        for (int i = 0; i < 6; i++) { // this player follows rock with rock
+            moves.add(Move.ROCK);
+        }
+        assertEquals(Move.PAPER, strategy.makeMove(moves));
+    }
+
+    @Test
+    @DisplayName("Rounds are added as they are played, and not again when replayed or learned again")
+    void replay() {
+        List<Move> moves = Arrays.asList(Move.ROCK, Move.PAPER, Move.PAPER, Move.SCISSORS, Move.ROCK, Move.PAPER);
+        PopulationModel once = new PopulationModel(1);
+        new Game(Strategies.population(once, 5, Strategies.ALWAYS_ROCK)).playRounds(moves.toArray(new Move[0]));
+        PopulationModel tracked = new PopulationModel(1);
+        Game plain = new Game(Strategies.ALWAYS_ROCK);
+        tracked.track(plain);
+        plain.playRounds(moves.toArray(new Move[0]));
+        assertArrayEquals(counts(tracked), counts(once));
+
+        PopulationModel population = new PopulationModel(1);
+        Strategy strategy = Strategies.population(population, 5, Strategies.ALWAYS_ROCK);
+        Game played = new Game(strategy);
+        played.playRounds(moves.subList(0, 5).toArray(new Move[0]));
+        strategy.makeMove(moves.subList(0, 2)); // history rewritten, the model is reset and rebuilt
+
+        Game resumed = new Game(strategy);
+        for (Move move : moves.subList(0, 5)) { // the game is replayed from its log
+            resumed.replayRound(move, Move.ROCK);
+        }
+        resumed.playRound(moves.get(5));
+        assertArrayEquals(counts(once), counts(population));
+    }
+
+    // openings followed by the counts of all contexts
+    private static long[] counts(PopulationModel population) {
+        List<Long> counts = new ArrayList<>();
+        for (Move move : Move.values()) {
+            counts.add(population.openings(move));
+        }
+        int contexts = 1;
+        for (int k = 0; k <= population.getMaxOrder(); k++, contexts *= 3) {
+            for (int context = 0; context < contexts; context++) {
+                for (Move move : Move.values()) {
+                    counts.add(population.count(k, context, move));
+                }
+            }
+        }
+        return counts.stream().mapToLong(Long::longValue).toArray();
+    }
+}
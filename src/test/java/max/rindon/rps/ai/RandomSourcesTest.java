@@ -0,0 +1,41 @@
+package max.rindon.rps.ai;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RandomSourcesTest {
+
+    @Test
+    @DisplayName("Seeded sources are reproducible")
+    void reproducible() {
+        assertEquals(draw(RandomSources.xorShift(42)), draw(RandomSources.xorShift(42)));
+        assertEquals(draw(RandomSources.splittable(42)), draw(RandomSources.splittable(42)));
+        assertNotEquals(draw(RandomSources.xorShift(42)), draw(RandomSources.xorShift(43)));
+        assertNotEquals(RandomSources.seed(1, 0), RandomSources.seed(1, 1));
+    }
+
+    @Test
+    @DisplayName("Xorshift numbers are within bounds and roughly uniform")
+    void xorShiftUniform() {
+        RandomSource random = RandomSources.xorShift(7);
+        int[] counts = new int[3];
+        for (int i = 0; i < 30_000; i++) {
+            counts[random.nextInt(3)]++;
+        }
+        for (int count : counts) {
+            assertTrue(Math.abs(count - 10_000) < 500, "count " + count);
+        }
+    }
+
+    private static String draw(RandomSource random) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < 32; i++) {
+            sb.append(random.nextInt(3));
+        }
+        return sb.toString();
+    }
+}
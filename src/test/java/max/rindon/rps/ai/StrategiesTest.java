@@ -1,15 +1,27 @@
 package max.rindon.rps.ai;
 
+import max.rindon.rps.domain.Game;
 import max.rindon.rps.domain.Move;
+import max.rindon.rps.domain.Outcome;
+import max.rindon.rps.domain.Round;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static java.util.Collections.emptyList;
 import static java.util.Collections.singletonList;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 
 class StrategiesTest {
 
@@ -102,6 +114,25 @@ class StrategiesTest {
         assertEquals(Move.SCISSORS, move);
     }
 
+    @Test
+    @DisplayName("Beats most frequent of the last opponent moves.")
+    void beatMostFrequentInWindow() {
+        Strategy strategy = Strategies.beatMostFrequent(Strategies.ALWAYS_ROCK, 2);
+        List<Move> moves = new ArrayList<>(MOVES);
+        assertEquals(Move.SCISSORS, strategy.makeMove(moves));
+        moves.add(Move.ROCK);
+        moves.add(Move.ROCK);
+        assertEquals(Move.PAPER, strategy.makeMove(moves));
+    }
+
+    @Test
+    @DisplayName("Beats the opponent move with the highest decayed frequency.")
+    void beatMostFrequentDecayed() {
+        List<Move> moves = Arrays.asList(Move.PAPER, Move.PAPER, Move.PAPER, Move.ROCK, Move.ROCK);
+        assertEquals(Move.SCISSORS, Strategies.beatMostFrequentDecayed(Strategies.ALWAYS_ROCK, 1.0).makeMove(moves));
+        assertEquals(Move.PAPER, Strategies.beatMostFrequentDecayed(Strategies.ALWAYS_ROCK, 0.5).makeMove(moves));
+    }
+
     @Test
     @DisplayName("Uses Markov chain to predict next opponent move.")
     void markovChain() {
@@ -118,4 +149,165 @@ class StrategiesTest {
         assertEquals(Move.ROCK, markov.makeMove(MOVES));
     }
 
-}
\ No newline at end of file
+    @Test
+    @DisplayName("Markov chain updated incrementally makes the same moves as one built from the whole history.")
+    void markovChainIncremental() {
+        Random incrementalGen = new Random(42);
+        Random rebuiltGen = new Random(42);
+        Random opponent = new Random(7);
+        Strategy incremental = Strategies.markovChain(Strategies.ALWAYS_PAPER, incrementalGen::nextInt);
+
+        List<Move> history = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            Strategy rebuilt = Strategies.markovChain(Strategies.ALWAYS_PAPER, rebuiltGen::nextInt);
+            assertEquals(rebuilt.makeMove(history), incremental.makeMove(history));
+            history.add(Move.values()[opponent.nextInt(3)]);
+        }
+    }
+
+    @Test
+    @DisplayName("Variable order Markov chain predicts the move following the longest known context.")
+    void variableOrderMarkov() {
+        Strategy markov = Strategies.variableOrderMarkov(2, Strategies.ALWAYS_PAPER);
+        assertEquals(Move.PAPER, markov.makeMove(emptyList()));
+
+        // after R, P the opponent played S and after P, P - R
+        List<Move> moves = new ArrayList<>(Arrays.asList(Move.ROCK, Move.PAPER, Move.SCISSORS, Move.PAPER, Move.PAPER, Move.ROCK, Move.PAPER));
+        assertEquals(Move.ROCK, markov.makeMove(moves));
+        moves.add(Move.PAPER);
+        assertEquals(Move.PAPER, markov.makeMove(moves));
+    }
+
+    @Test
+    @DisplayName("Variable order Markov chain backs off to shorter contexts.")
+    void variableOrderMarkovBackOff() {
+        Strategy markov = Strategies.variableOrderMarkov(3, 4, Strategies.ALWAYS_PAPER);
+        // the last three moves were never seen before, but rock always followed scissors
+        List<Move> moves = Arrays.asList(Move.SCISSORS, Move.ROCK, Move.PAPER, Move.SCISSORS, Move.ROCK, Move.ROCK, Move.SCISSORS);
+        assertEquals(Move.PAPER, markov.makeMove(moves));
+    }
+
+    @Test
+    @DisplayName("Variable order Markov chain predicts the same with contexts hashed as with contexts indexed.")
+    void variableOrderMarkovHashed() {
+        Strategy indexed = Strategies.variableOrderMarkov(6, 729, Strategies.ALWAYS_PAPER); // 3^6, all contexts fit
+        Strategy hashed = Strategies.variableOrderMarkov(6, 728, Strategies.ALWAYS_PAPER);
+        Random random = new Random(42);
+        List<Move> moves = new ArrayList<>();
+        for (int i = 0; i < 300; i++) { // fewer contexts than fit, so that the tables grow but none is dropped
+            assertEquals(indexed.makeMove(moves), hashed.makeMove(moves));
+            moves.add(Move.values()[random.nextInt(3)]);
+        }
+        assertThrows(IllegalArgumentException.class,
+                () -> Strategies.variableOrderMarkov(32, Integer.MAX_VALUE, Strategies.ALWAYS_PAPER));
+    }
+
+    @Test
+    @DisplayName("Joint Markov chain learns an opponent reacting to our moves.")
+    void jointMarkov() {
+        Game game = Game.historyAware(Strategies.jointMarkov(2, Strategies.ALWAYS_PAPER));
+        List<Move> aiMoves = game.getHistory().getAiMoves();
+        int aiWins = 0;
+        for (int i = 0; i < 100; i++) {
+            // the opponent plays what would have beaten our last move
+            Move move = aiMoves.isEmpty() ? Move.ROCK : aiMoves.get(aiMoves.size() - 1).losesTo();
+            Round round = game.playRound(move);
+            if (i >= 50 && round.outcome == Outcome.LOSS) {
+                aiWins++;
+            }
+        }
+        assertEquals(50, aiWins);
+    }
+
+    @Test
+    @DisplayName("Joint Markov chain of the maximum order keeps its contexts within a long.")
+    void jointMarkovMaxOrder() {
+        Game game = Game.historyAware(Strategies.jointMarkov(18, Strategies.ALWAYS_PAPER));
+        for (int i = 0; i < 1000; i++) {
+            game.playRound(Move.values()[i * 7 % 11 % 3]);
+        }
+        assertEquals(1000, game.getRoundCount());
+        assertThrows(IllegalArgumentException.class, () -> Strategies.jointMarkov(19, Strategies.ALWAYS_PAPER));
+    }
+
+    @Test
+    @DisplayName("Ensemble plays the move of the strategy that would have scored best.")
+    void ensemble() {
+        Strategy ensemble = Strategies.ensemble(Arrays.asList(Strategies.ALWAYS_ROCK, Strategies.ALWAYS_PAPER), 0.9);
+        List<Move> moves = new ArrayList<>();
+        assertEquals(Move.ROCK, ensemble.makeMove(moves)); // no scores yet, first strategy wins
+        moves.add(Move.ROCK);
+        assertEquals(Move.PAPER, ensemble.makeMove(moves)); // paper would have beaten rock
+        moves.add(Move.SCISSORS);
+        moves.add(Move.SCISSORS);
+        assertEquals(Move.ROCK, ensemble.makeMove(moves)); // only moves we made predictions for count
+    }
+
+    @Test
+    @DisplayName("Ensemble may run strategies concurrently.")
+    void parallelEnsemble() {
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Strategy ensemble = Strategies.ensemble(Arrays.asList(Strategies.ALWAYS_SCISSORS, Strategies.ALWAYS_ROCK),
+                    1.0, 0.01, bound -> bound / 2, executor);
+            List<Move> moves = new ArrayList<>();
+            ensemble.makeMove(moves);
+            moves.add(Move.SCISSORS);
+            assertEquals(Move.ROCK, ensemble.makeMove(moves));
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    @DisplayName("Falls back when the primary strategy misses its budget, with one primary move in flight at most.")
+    void withBudget() throws Exception {
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger calls = new AtomicInteger();
+        try {
+            BudgetedStrategy budgeted = Strategies.withBudget(history -> {
+                calls.incrementAndGet();
+                if (history.size() == 1) {
+                    try {
+                        release.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+                return Move.PAPER;
+            }, Strategies.ALWAYS_ROCK, 50, TimeUnit.MILLISECONDS, executor);
+            List<Move> moves = new ArrayList<>();
+            assertEquals(Move.PAPER, budgeted.makeMove(moves));
+            moves.add(Move.ROCK);
+            assertEquals(Move.ROCK, budgeted.makeMove(moves)); // primary is stuck
+            assertEquals(Move.ROCK, budgeted.makeMove(moves)); // and not called again while in flight
+            assertEquals(2, calls.get());
+
+            release.countDown();
+            executor.submit(() -> { }).get(); // the stuck move has finished
+            moves.add(Move.ROCK);
+            assertEquals(Move.PAPER, budgeted.makeMove(moves));
+            assertEquals(4, budgeted.getMoves());
+            assertEquals(2, budgeted.getFallbacks());
+        } finally {
+            release.countDown();
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    @DisplayName("Makes moves computed ahead by a speculating game without handing them off")
+    void withBudgetComputedAhead() {
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        executor.shutdown(); // any hand-off is rejected
+        BudgetedStrategy budgeted = Strategies.withBudget(Strategies.ALWAYS_PAPER, Strategies.ALWAYS_ROCK,
+                50, TimeUnit.MILLISECONDS, executor);
+        Game game = new Game(budgeted);
+        game.speculate(Runnable::run);
+        assertEquals(Round.of(Move.ROCK, Move.PAPER), game.playRound(Move.ROCK));
+        assertEquals(Round.of(Move.ROCK, Move.PAPER), game.playRound(Move.ROCK));
+        assertEquals(0, budgeted.getFallbacks());
+        assertThrows(RejectedExecutionException.class, () -> budgeted.makeMove(emptyList()));
+    }
+}
@@ -0,0 +1,175 @@
+package max.rindon.rps.domain;
+
+import max.rindon.rps.ai.HistoryAwareStrategy;
+import max.rindon.rps.ai.Strategies;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class GameTest {
+
+    @Test
+    @DisplayName("Rounds are shared instances")
+    void sharedRounds() {
+        Game game = new Game(Strategies.ALWAYS_ROCK);
+        Round round = game.playRound(Move.PAPER);
+        assertEquals(new Round(Move.PAPER, Move.ROCK, Outcome.WIN), round);
+        assertSame(round, game.playRound(Move.PAPER));
+        assertSame(round, Round.of(round.code()));
+    }
+
+    @Test
+    @DisplayName("Statistics is a live view of the game")
+    void statistics() {
+        Game game = new Game(Strategies.ALWAYS_ROCK);
+        Map<Outcome, Integer> statistics = game.getStatistics();
+        game.playRound(Move.PAPER);
+        game.playRound(Move.PAPER);
+        game.playRound(Move.ROCK);
+
+        Map<Outcome, Integer> expected = new EnumMap<>(Outcome.class);
+        expected.put(Outcome.WIN, 2);
+        expected.put(Outcome.LOSS, 0);
+        expected.put(Outcome.DRAW, 1);
+        assertEquals(expected, statistics);
+        assertEquals(2, (int) statistics.get(Outcome.WIN));
+        assertEquals(3, game.getRoundCount());
+    }
+
+    @Test
+    @DisplayName("A batch plays the same rounds as single moves")
+    void playRounds() {
+        Move[] moves = {Move.PAPER, Move.SCISSORS, Move.ROCK, Move.PAPER};
+        Game single = new Game(Strategies.markovChain(Strategies.ALWAYS_ROCK, bound -> 0));
+        Game batch = new Game(Strategies.markovChain(Strategies.ALWAYS_ROCK, bound -> 0));
+        List<Round> listened = new ArrayList<>();
+        batch.addRoundListener(listened::add);
+
+        byte[] codes = batch.playRounds(moves);
+
+        assertEquals(moves.length, codes.length);
+        for (int i = 0; i < moves.length; i++) {
+            Round round = single.playRound(moves[i]);
+            assertEquals(round.code(), codes[i]);
+            assertSame(round, listened.get(i));
+        }
+        assertEquals(single.getStatistics(), batch.getStatistics());
+        assertEquals(moves.length, batch.getRoundCount());
+    }
+
+    @Test
+    @DisplayName("Strategy lambdas make games")
+    void strategyLambda() {
+        Game game = new Game(moves -> moves.isEmpty() ? Move.ROCK : moves.get(moves.size() - 1));
+        game.playRound(Move.PAPER);
+        assertEquals(Round.of(Move.SCISSORS, Move.PAPER), game.playRound(Move.SCISSORS));
+    }
+
+    @Test
+    @DisplayName("History aware strategy sees the rounds so far and is told about every round played")
+    void historyAwareStrategy() {
+        List<Integer> sizes = new ArrayList<>();
+        List<Round> told = new ArrayList<>();
+        Game game = Game.historyAware(new HistoryAwareStrategy() {
+            @Override
+            public Move makeMove(GameHistory history) {
+                sizes.add(history.size());
+                List<Round> rounds = history.getRounds();
+                return rounds.isEmpty() ? Move.ROCK : rounds.get(rounds.size() - 1).playerMove;
+            }
+
+            @Override
+            public void onRoundPlayed(Round round) {
+                told.add(round);
+            }
+        });
+        game.replayRound(Move.SCISSORS, Move.PAPER);
+        Round first = game.playRound(Move.PAPER);
+        Round second = game.playRound(Move.ROCK);
+
+        assertEquals(Round.of(Move.PAPER, Move.SCISSORS), first);
+        assertEquals(Round.of(Move.ROCK, Move.PAPER), second);
+        assertEquals(Arrays.asList(1, 2), sizes);
+        assertEquals(Arrays.asList(first, second), told);
+        assertEquals(Arrays.asList(Round.of(Move.SCISSORS, Move.PAPER), first, second), game.getHistory().getRounds());
+    }
+
+    @Test
+    @DisplayName("Speculating computes AI moves ahead on the executor, the same moves as without")
+    void speculate() throws Exception {
+        Move[] moves = {Move.PAPER, Move.SCISSORS, Move.ROCK, Move.PAPER, Move.PAPER, Move.ROCK};
+        Game plain = new Game(Strategies.markovChain(Strategies.ALWAYS_ROCK, bound -> 0));
+        List<String> threads = new ArrayList<>();
+        Game speculating = new Game(Strategies.firstThenOther(Strategies.ALWAYS_ROCK, history -> {
+            threads.add(Thread.currentThread().getName());
+            return Strategies.markovChain(Strategies.ALWAYS_ROCK, bound -> 0).makeMove(history);
+        }));
+        ExecutorService executor = Executors.newSingleThreadExecutor(task -> new Thread(task, "speculation"));
+        try {
+            speculating.speculate(executor);
+            for (Move move : moves) {
+                assertEquals(plain.playRound(move), speculating.playRound(move));
+                executor.submit(() -> { }).get(); // the next move is computed before the player moves
+                assertEquals(speculating.getRoundCount(), threads.size());
+            }
+            speculating.stopSpeculating();
+            assertEquals(plain.playRound(Move.ROCK), speculating.playRound(Move.ROCK));
+            assertEquals(moves.length + 1, threads.size());
+            assertEquals("speculation", threads.get(0));
+            assertEquals(Thread.currentThread().getName(), threads.get(moves.length));
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    @DisplayName("Replaying rounds computes the next AI move ahead again, once they are all replayed")
+    void speculateAfterReplay() {
+        Queue<Runnable> ai = new ArrayDeque<>();
+        Game game = new Game(Strategies.echo(Strategies.ALWAYS_ROCK));
+        game.speculate(ai::add);
+        ai.remove().run();
+        assertTrue(game.isAiMoveReady());
+
+        game.replayRound(Move.ROCK, Move.ROCK);
+        game.replayRound(Move.SCISSORS, Move.ROCK);
+        assertTrue(ai.isEmpty());
+        assertFalse(game.isAiMoveReady());
+        ai.remove().run();
+        assertTrue(game.isAiMoveReady());
+        assertEquals(Round.of(Move.PAPER, Move.SCISSORS), game.playRound(Move.PAPER));
+    }
+
+    @Test
+    @DisplayName("Once the executor rejects the AI move, it is computed when the player moves")
+    void speculationRejected() {
+        boolean[] shutDown = new boolean[1];
+        Game game = new Game(Strategies.echo(Strategies.ALWAYS_ROCK));
+        game.speculate(task -> {
+            if (shutDown[0]) {
+                throw new RejectedExecutionException("Shut down");
+            }
+            task.run();
+        });
+        assertEquals(Round.of(Move.PAPER, Move.ROCK), game.playRound(Move.PAPER));
+        shutDown[0] = true;
+        assertEquals(Round.of(Move.SCISSORS, Move.PAPER), game.playRound(Move.SCISSORS));
+        assertTrue(game.isAiMoveReady());
+        assertEquals(Round.of(Move.ROCK, Move.SCISSORS), game.playRound(Move.ROCK));
+    }
+}
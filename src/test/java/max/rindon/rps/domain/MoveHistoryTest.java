@@ -0,0 +1,47 @@
+package max.rindon.rps.domain;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class MoveHistoryTest {
+
+    @Test
+    @DisplayName("Keeps appended moves in order")
+    void append() {
+        MoveHistory history = new MoveHistory();
+        List<Move> expected = new ArrayList<>();
+        for (int i = 0; i < 5000; i++) { // spans several segments
+            Move move = Move.values()[(i * 7 + i / 3) % 3];
+            history.append(move);
+            expected.add(move);
+        }
+        assertEquals(expected, history);
+    }
+
+    @Test
+    @DisplayName("Is a live view of the moves appended so far")
+    void liveView() {
+        MoveHistory history = new MoveHistory();
+        List<Move> view = Collections.unmodifiableList(history);
+        assertEquals(0, view.size());
+        history.append(Move.ROCK);
+        history.append(Move.PAPER);
+        assertEquals(2, view.size());
+        assertEquals(Move.PAPER, view.get(1));
+        assertThrows(IndexOutOfBoundsException.class, () -> view.get(2));
+    }
+
+    @Test
+    @DisplayName("Can't be modified through the List interface")
+    void readOnly() {
+        MoveHistory history = new MoveHistory();
+        assertThrows(UnsupportedOperationException.class, () -> history.add(Move.ROCK));
+    }
+}
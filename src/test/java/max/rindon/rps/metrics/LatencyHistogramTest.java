@@ -0,0 +1,49 @@
+package max.rindon.rps.metrics;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LatencyHistogramTest {
+
+    @Test
+    @DisplayName("Small values are recorded exactly")
+    void exact() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int i = 1; i <= 50; i++) {
+            histogram.record(i);
+        }
+        assertEquals(50, histogram.getCount());
+        assertEquals(25, histogram.getValueAtPercentile(50));
+        assertEquals(50, histogram.getValueAtPercentile(100));
+        assertEquals(25.5, histogram.getMean(), 1e-9);
+    }
+
+    @Test
+    @DisplayName("Large values are recorded within a few percent")
+    void precision() {
+        for (long value = 64; value > 0 && value < Long.MAX_VALUE / 3; value = value * 3 + 1) {
+            LatencyHistogram histogram = new LatencyHistogram();
+            histogram.record(value);
+            histogram.record(value * 2);
+            long median = histogram.getValueAtPercentile(50);
+            assertTrue(median >= value && median <= value * 1.04, value + " reported as " + median);
+        }
+    }
+
+    @Test
+    @DisplayName("Buckets cover all values without gaps")
+    void buckets() {
+        assertEquals(0, LatencyHistogram.index(0));
+        assertEquals(63, LatencyHistogram.index(63));
+        for (int i = 1; i < LatencyHistogram.index(Long.MAX_VALUE); i++) {
+            long lowest = LatencyHistogram.highestEquivalentValue(i - 1) + 1;
+            assertEquals(i, LatencyHistogram.index(lowest));
+            assertEquals(i, LatencyHistogram.index(LatencyHistogram.highestEquivalentValue(i)));
+        }
+        assertEquals(Long.MAX_VALUE,
+                LatencyHistogram.highestEquivalentValue(LatencyHistogram.index(Long.MAX_VALUE)));
+    }
+}
@@ -0,0 +1,103 @@
+package max.rindon.rps.metrics;
+
+import max.rindon.rps.ai.Strategies;
+import max.rindon.rps.ai.Strategy;
+import max.rindon.rps.domain.Game;
+import max.rindon.rps.domain.Move;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.Collections;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class MetricsTest {
+
+    private final AtomicLong nanoTime = new AtomicLong();
+    private final Metrics metrics = new Metrics(2, nanoTime::get);
+
+    @Test
+    @DisplayName("Counts rounds of tracked games, from the AI point of view")
+    void rounds() {
+        Game game = new Game(Strategies.ALWAYS_ROCK);
+        game.playRound(Move.PAPER); // played before tracking
+        metrics.track(game);
+        game.playRound(Move.SCISSORS);
+        game.playRound(Move.SCISSORS);
+        game.playRound(Move.PAPER);
+        game.playRound(Move.ROCK);
+
+        assertEquals(1, metrics.getGames());
+        assertEquals(4, metrics.getRounds());
+        assertEquals(2, metrics.getAiWins());
+        assertEquals(1, metrics.getAiLosses());
+        assertEquals(1, metrics.getDraws());
+        assertEquals(5, metrics.getLongestHistory());
+    }
+
+    @Test
+    @DisplayName("Reports rate and AI win rate over complete seconds of the window")
+    void window() {
+        Game game = new Game(Strategies.ALWAYS_ROCK);
+        metrics.track(game);
+        game.playRound(Move.SCISSORS);
+        game.playRound(Move.PAPER);
+        assertEquals(0, metrics.getRoundsPerSecond(), 1e-9); // the second is not over yet
+
+        tick();
+        game.playRound(Move.SCISSORS);
+        game.playRound(Move.SCISSORS);
+        tick();
+        assertEquals(2, metrics.getRoundsPerSecond(), 1e-9);
+        assertEquals(0.75, metrics.getAiWinRate(), 1e-9);
+
+        tick();
+        assertEquals(1, metrics.getRoundsPerSecond(), 1e-9);
+        assertEquals(1, metrics.getAiWinRate(), 1e-9);
+        tick();
+        assertEquals(0, metrics.getRoundsPerSecond(), 1e-9);
+        assertEquals(0, metrics.getAiWinRate(), 1e-9);
+    }
+
+    @Test
+    @DisplayName("Records decision latency of timed strategies by name")
+    void latency() {
+        Strategy slow = moves -> {
+            nanoTime.addAndGet(1000);
+            return Move.ROCK;
+        };
+        metrics.timed("slow", slow).makeMove(Collections.emptyList());
+        metrics.timed("slow", slow).makeMove(Collections.emptyList());
+
+        LatencyHistogram latency = metrics.getDecisionLatency().get("slow");
+        assertEquals(2, latency.getCount());
+        assertEquals(1000, latency.getMax());
+        assertEquals(1000L, (long) metrics.getDecisionLatencyMedianNanos().get("slow"));
+    }
+
+    @Test
+    @DisplayName("Reports moves and fallbacks of budgeted strategies by name")
+    void budget() {
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Strategies.withBudget(Strategies.ALWAYS_PAPER, Strategies.ALWAYS_ROCK, 1, TimeUnit.SECONDS, executor,
+                    metrics.budgetCounts("paper")).makeMove(Collections.emptyList());
+            Strategies.withBudget(Strategies.ALWAYS_PAPER, Strategies.ALWAYS_ROCK, 1, TimeUnit.SECONDS, executor,
+                    metrics.budgetCounts("paper")).makeMove(Collections.emptyList());
+        } finally {
+            executor.shutdown();
+        }
+
+        assertEquals(2, metrics.getBudgetCounts().get("paper").getMoves());
+        assertEquals(2L, (long) metrics.getBudgetedMoves().get("paper"));
+        assertEquals(0L, (long) metrics.getBudgetFallbacks().get("paper"));
+    }
+
+    private void tick() {
+        nanoTime.addAndGet(TimeUnit.SECONDS.toNanos(1));
+    }
+}
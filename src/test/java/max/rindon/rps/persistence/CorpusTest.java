@@ -0,0 +1,110 @@
+package max.rindon.rps.persistence;
+
+import max.rindon.rps.domain.Move;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CorpusTest {
+
+    private Path file;
+
+    @BeforeEach
+    void createFile() throws IOException {
+        file = Files.createTempFile("corpus", ".txt");
+    }
+
+    @AfterEach
+    void deleteFile() throws IOException {
+        Files.deleteIfExists(file);
+    }
+
+    @Test
+    @DisplayName("Reads a session per line of text")
+    void text() throws IOException {
+        Files.write(file, "rps\r\n\nSSp\npr".getBytes(StandardCharsets.US_ASCII));
+        assertEquals(Arrays.asList(
+                Arrays.asList(Move.ROCK, Move.PAPER, Move.SCISSORS),
+                Arrays.asList(Move.SCISSORS, Move.SCISSORS, Move.PAPER),
+                Arrays.asList(Move.PAPER, Move.ROCK)), readAll());
+    }
+
+    @Test
+    @DisplayName("Reads back packed sessions")
+    void packed() throws IOException {
+        List<List<Move>> sessions = new ArrayList<>();
+        for (int length : new int[]{1, 4, 7, 300_000}) {
+            List<Move> session = new ArrayList<>();
+            for (int i = 0; i < length; i++) {
+                session.add(Move.values()[(i % 7 * i + length) % 3]);
+            }
+            sessions.add(session);
+        }
+        try (CorpusWriter writer = new CorpusWriter(file)) {
+            for (List<Move> session : sessions) {
+                writer.write(session);
+            }
+            writer.write(Collections.emptyList());
+        }
+        assertEquals(4 + 4 * 4 + 1 + 1 + 2 + 75_000, Files.size(file)); // header, lengths and 4 moves per byte
+        assertEquals(sessions, readAll());
+    }
+
+    @Test
+    @DisplayName("Replays the current session")
+    void opponent() throws IOException {
+        Files.write(file, "rp\ns\n".getBytes(StandardCharsets.US_ASCII));
+        try (Corpus corpus = Corpus.open(file)) {
+            assertTrue(corpus.next());
+            assertEquals(Move.ROCK, corpus.opponent().makeMove(Collections.emptyList()));
+            assertEquals(Move.PAPER, corpus.opponent().makeMove(Collections.singletonList(Move.ROCK)));
+            assertEquals(Move.ROCK, corpus.opponent().makeMove(Arrays.asList(Move.ROCK, Move.ROCK)));
+            assertTrue(corpus.next());
+            assertEquals(Move.SCISSORS, corpus.opponent().makeMove(Collections.emptyList()));
+            assertFalse(corpus.next());
+            assertThrows(IllegalStateException.class, () -> corpus.opponent().makeMove(Collections.emptyList()));
+        }
+    }
+
+    @Test
+    @DisplayName("Rejects corrupted corpus")
+    void corrupted() throws IOException {
+        Files.write(file, "rpx\n".getBytes(StandardCharsets.US_ASCII));
+        try (Corpus corpus = Corpus.open(file)) {
+            assertThrows(IOException.class, corpus::next);
+        }
+        Files.write(file, new byte[]{'R', 'P', 'C', 1, 0, 0, 0, 5, 0});
+        try (Corpus corpus = Corpus.open(file)) {
+            assertThrows(IOException.class, corpus::next);
+        }
+        Files.write(file, new byte[]{'R', 'P', 'C', 1, 0x7F, -1, -1, -1, 0}); // length far beyond the end of the file
+        try (Corpus corpus = Corpus.open(file)) {
+            assertThrows(IOException.class, corpus::next);
+        }
+    }
+
+    private List<List<Move>> readAll() throws IOException {
+        List<List<Move>> sessions = new ArrayList<>();
+        try (Corpus corpus = Corpus.open(file)) {
+            while (corpus.next()) {
+                sessions.add(new ArrayList<>(corpus.session()));
+            }
+        }
+        return sessions;
+    }
+}
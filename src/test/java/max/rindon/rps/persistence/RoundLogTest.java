@@ -0,0 +1,86 @@
+package max.rindon.rps.persistence;
+
+import max.rindon.rps.ai.Strategies;
+import max.rindon.rps.domain.Game;
+import max.rindon.rps.domain.Move;
+import max.rindon.rps.domain.Outcome;
+import max.rindon.rps.domain.Round;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class RoundLogTest {
+
+    private Path file;
+
+    @BeforeEach
+    void createFile() throws IOException {
+        file = Files.createTempFile("rounds", ".rps");
+        Files.delete(file);
+    }
+
+    @AfterEach
+    void deleteFile() throws IOException {
+        Files.deleteIfExists(file);
+    }
+
+    @Test
+    @DisplayName("Replays logged rounds in order")
+    void replay() throws IOException {
+        List<Round> played = new ArrayList<>();
+        Game game = new Game(Strategies.alternate(Strategies.ALWAYS_ROCK, Strategies.ALWAYS_SCISSORS));
+        try (RoundLog log = new RoundLog(file, 4, false)) {
+            game.addRoundListener(log);
+            for (int i = 0; i < 10; i++) {
+                played.add(game.playRound(Move.values()[i % 3]));
+            }
+        }
+        assertEquals(4 + 10, Files.size(file)); // header and a byte per round
+
+        List<Round> replayed = new ArrayList<>();
+        long rounds = RoundLogReader.replay(file, (playerMove, aiMove, outcome) -> replayed.add(new Round(playerMove, aiMove, outcome)));
+        assertEquals(10, rounds);
+        assertEquals(played, replayed);
+    }
+
+    @Test
+    @DisplayName("Resumes a game and keeps appending to its log")
+    void resume() throws IOException {
+        try (RoundLog log = new RoundLog(file, 8, false)) {
+            Game game = new Game(Strategies.ALWAYS_ROCK);
+            game.addRoundListener(log);
+            game.playRound(Move.PAPER);
+            game.playRound(Move.ROCK);
+        }
+
+        Game resumed = new Game(Strategies.ALWAYS_ROCK);
+        assertEquals(2, RoundLogReader.resume(file, resumed));
+        try (RoundLog log = new RoundLog(file, 8, false)) {
+            resumed.addRoundListener(log);
+            resumed.playRound(Move.SCISSORS);
+        }
+        assertEquals(1, (int) resumed.getStatistics().get(Outcome.WIN));
+        assertEquals(1, (int) resumed.getStatistics().get(Outcome.LOSS));
+
+        Game again = new Game(Strategies.ALWAYS_ROCK);
+        assertEquals(3, RoundLogReader.resume(file, again));
+        assertEquals(resumed.getStatistics(), again.getStatistics());
+    }
+
+    @Test
+    @DisplayName("Refuses files that are not round logs")
+    void notALog() throws IOException {
+        Files.write(file, new byte[]{'n', 'o', 'p', 'e', 0});
+        assertThrows(IOException.class, () -> RoundLogReader.replay(file, (playerMove, aiMove, outcome) -> { }));
+    }
+}
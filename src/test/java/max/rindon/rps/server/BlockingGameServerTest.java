@@ -0,0 +1,45 @@
+package max.rindon.rps.server;
+
+import max.rindon.rps.ai.Strategies;
+import max.rindon.rps.ui.UI;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class BlockingGameServerTest {
+
+    @Test
+    @DisplayName("Runs a game per connection on a thread pool")
+    void play() throws IOException {
+        BlockingGameServer server = new BlockingGameServer(0, BlockingGameServer.Mode.PLATFORM_THREADS, 2,
+                () -> Strategies.ALWAYS_ROCK);
+        server.start();
+        try (Socket socket = new Socket("localhost", server.getPort())) {
+            BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+            OutputStream out = socket.getOutputStream();
+            assertEquals(UI.WELCOME_MESSAGE, in.readLine());
+
+            out.write("r\n:q\n".getBytes(StandardCharsets.UTF_8));
+            out.flush();
+            String line = in.readLine();
+            while (!"And it's a draw.".equals(line)) {
+                line = in.readLine();
+            }
+            while (!"Draw: 1".equals(line)) {
+                line = in.readLine();
+            }
+            assertNull(in.readLine()); // connection is closed after quitting
+        } finally {
+            server.stop();
+        }
+    }
+}
@@ -0,0 +1,111 @@
+package max.rindon.rps.server;
+
+import max.rindon.rps.ai.PopulationModel;
+import max.rindon.rps.ai.Strategies;
+import max.rindon.rps.domain.Move;
+import max.rindon.rps.ui.UI;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class HttpGameServerTest {
+
+    private HttpGameServer server;
+    private String url;
+
+    @BeforeEach
+    void start() throws IOException {
+        server = new HttpGameServer(0, 4, () -> Strategies.ALWAYS_ROCK, 10, 3, 60_000);
+        server.start();
+        url = "http://localhost:" + server.getPort() + HttpGameServer.PATH;
+    }
+
+    @AfterEach
+    void stop() {
+        server.stop();
+    }
+
+    @Test
+    @DisplayName("Plays a game over HTTP")
+    void play() throws IOException {
+        String welcome = LoadClient.post(url, "");
+        String id = welcome.substring(0, welcome.indexOf('\n'));
+        assertTrue(welcome.contains(UI.WELCOME_MESSAGE));
+        assertEquals(1, server.getGameCount());
+
+        long paperOpenings = PopulationModel.global().openings(Move.PAPER);
+        String round = LoadClient.post(url + "/" + id, "p");
+        assertTrue(round.contains("Greetings, you won!"));
+        assertEquals(paperOpenings + 1, PopulationModel.global().openings(Move.PAPER)); // all games feed the population
+        assertTrue(round.endsWith(UI.MOVE_PROMPT_MESSAGE + "\n"));
+
+        String stats = LoadClient.post(url + "/" + id, ":q");
+        assertTrue(stats.startsWith("You: 1"));
+        assertEquals(0, server.getGameCount());
+        assertThrows(IOException.class, () -> LoadClient.post(url + "/" + id, "r"));
+    }
+
+    @Test
+    @DisplayName("Ends games after the maximum number of rounds")
+    void maxRounds() throws IOException {
+        String welcome = LoadClient.post(url, "");
+        String id = welcome.substring(0, welcome.indexOf('\n'));
+        LoadClient.post(url + "/" + id, "r");
+        LoadClient.post(url + "/" + id, "r");
+        String last = LoadClient.post(url + "/" + id, "r");
+        assertTrue(last.endsWith("Draw: 3\n"));
+        assertEquals(0, server.getGameCount());
+    }
+
+    @Test
+    @DisplayName("Starts no more than the maximum number of games, even concurrently")
+    void maxGames() throws Exception {
+        ExecutorService clients = Executors.newFixedThreadPool(20);
+        try {
+            List<Future<String>> welcomes = new ArrayList<>();
+            for (int i = 0; i < 20; i++) {
+                welcomes.add(clients.submit(() -> LoadClient.post(url, "")));
+            }
+            List<String> started = new ArrayList<>();
+            for (Future<String> welcome : welcomes) {
+                try {
+                    started.add(welcome.get());
+                } catch (ExecutionException e) {
+                    assertTrue(e.getCause() instanceof IOException);
+                }
+            }
+            assertEquals(10, started.size());
+            assertEquals(10, server.getGameCount());
+            assertThrows(IOException.class, () -> LoadClient.post(url, ""));
+
+            String id = started.get(0).substring(0, started.get(0).indexOf('\n'));
+            LoadClient.post(url + "/" + id, ":q");
+            LoadClient.post(url, ""); // the finished game has freed its slot
+            assertEquals(10, server.getGameCount());
+        } finally {
+            clients.shutdown();
+        }
+    }
+
+    @Test
+    @DisplayName("Serves many games with a load generating client")
+    void load() throws InterruptedException {
+        LoadClient client = new LoadClient("http://localhost:" + server.getPort());
+        client.run(10, 2, 5);
+        assertEquals(20, client.getRounds());
+        assertEquals(0, client.getErrors());
+    }
+}
@@ -0,0 +1,126 @@
+package max.rindon.rps.server;
+
+import max.rindon.rps.ai.Strategies;
+import max.rindon.rps.ui.UI;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class NioGameServerTest {
+
+    private NioGameServer server;
+
+    @BeforeEach
+    void start() throws IOException {
+        server = new NioGameServer(0, 2, () -> Strategies.ALWAYS_ROCK);
+        server.start();
+    }
+
+    @AfterEach
+    void stop() throws IOException {
+        server.stop();
+    }
+
+    @Test
+    @DisplayName("Plays games over TCP")
+    void play() throws IOException {
+        try (Socket first = new Socket("localhost", server.getPort());
+             Socket second = new Socket("localhost", server.getPort())) {
+            BufferedReader firstIn = reader(first);
+            BufferedReader secondIn = reader(second);
+            assertEquals(UI.WELCOME_MESSAGE, firstIn.readLine());
+            assertEquals(UI.WELCOME_MESSAGE, secondIn.readLine());
+            skipTo(firstIn, UI.MOVE_PROMPT_MESSAGE);
+            skipTo(secondIn, UI.MOVE_PROMPT_MESSAGE);
+
+            send(first, "p\r\n");
+            send(second, "s\n");
+            skipTo(firstIn, "Greetings, you won!");
+            skipTo(secondIn, "Sorry, you lost. Maybe next time!");
+
+            send(first, ":q\n");
+            skipTo(firstIn, "You: 1");
+            skipTo(firstIn, "Draw: 0");
+            assertNull(firstIn.readLine()); // connection is closed after quitting
+        }
+    }
+
+    @Test
+    @DisplayName("A failing game drops its own connection only")
+    void failingGame() throws IOException {
+        AtomicInteger games = new AtomicInteger();
+        NioGameServer single = new NioGameServer(0, 1, () -> {
+            if (games.getAndIncrement() == 0) {
+                throw new IllegalStateException("No strategy");
+            }
+            return Strategies.ALWAYS_ROCK;
+        });
+        single.start();
+        try (Socket failing = new Socket("localhost", single.getPort())) {
+            assertNull(reader(failing).readLine());
+            try (Socket socket = new Socket("localhost", single.getPort())) {
+                BufferedReader in = reader(socket);
+                skipTo(in, UI.MOVE_PROMPT_MESSAGE);
+                send(socket, "p\n");
+                skipTo(in, "Greetings, you won!");
+            }
+        } finally {
+            single.stop();
+        }
+    }
+
+    @Test
+    @DisplayName("A strategy failing while the move is computed ahead drops its own connection only")
+    void failingStrategy() throws IOException {
+        AtomicInteger games = new AtomicInteger();
+        NioGameServer single = new NioGameServer(0, 1, () -> games.getAndIncrement() == 0
+                ? moves -> {
+                    throw new IllegalStateException("No move");
+                }
+                : Strategies.ALWAYS_ROCK);
+        single.start();
+        try (Socket failing = new Socket("localhost", single.getPort());
+             Socket socket = new Socket("localhost", single.getPort())) {
+            BufferedReader failingIn = reader(failing);
+            BufferedReader in = reader(socket);
+            skipTo(failingIn, UI.MOVE_PROMPT_MESSAGE);
+            skipTo(in, UI.MOVE_PROMPT_MESSAGE);
+            send(failing, "p\n");
+            assertNull(failingIn.readLine());
+            send(socket, "p\n");
+            skipTo(in, "Greetings, you won!");
+        } finally {
+            single.stop();
+        }
+    }
+
+    private static BufferedReader reader(Socket socket) throws IOException {
+        return new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+    }
+
+    private static void send(Socket socket, String line) throws IOException {
+        OutputStream out = socket.getOutputStream();
+        out.write(line.getBytes(StandardCharsets.UTF_8));
+        out.flush();
+    }
+
+    private static void skipTo(BufferedReader in, String expected) throws IOException {
+        for (String line = in.readLine(); !expected.equals(line); line = in.readLine()) {
+            if (line == null) {
+                throw new AssertionError("Connection closed before " + expected);
+            }
+        }
+    }
+}
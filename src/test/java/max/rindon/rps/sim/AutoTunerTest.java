@@ -0,0 +1,52 @@
+package max.rindon.rps.sim;
+
+import max.rindon.rps.ai.Strategies;
+import max.rindon.rps.domain.Move;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AutoTunerTest {
+
+    private static AutoTuner tuner() {
+        return new AutoTuner(2, 200)
+                .register("rock", gen -> Strategies.ALWAYS_ROCK)
+                .register("cycle", gen -> Strategies.sequence(Arrays.asList(Move.ROCK, Move.PAPER, Move.SCISSORS)));
+    }
+
+    @Test
+    @DisplayName("Expressions are canonical")
+    void canonicalExpressions() {
+        Expression echo = Expression.leaves().get(4);
+        Expression markov = Expression.leaves().get(8);
+        assertEquals("echo", echo.toString());
+        assertSame(echo, Expression.of(Expression.Combinator.ALTERNATE, echo, echo));
+        assertEquals(Expression.of(Expression.Combinator.TOSS, echo, markov),
+                Expression.of(Expression.Combinator.TOSS, markov, echo));
+        assertEquals("toss(echo, markovChain)", Expression.of(Expression.Combinator.TOSS, markov, echo).toString());
+        assertEquals("alternate(markovChain, echo)", Expression.of(Expression.Combinator.ALTERNATE, markov, echo).toString());
+        assertEquals(2, Expression.of(Expression.Combinator.ALTERNATE, markov, echo).getDepth());
+    }
+
+    @Test
+    @DisplayName("Finds a strategy beating predictable opponents")
+    void search() {
+        List<Standing> standings = tuner().search(2, 3, 1, 2);
+        assertTrue(standings.get(0).score() > 0.9);
+        assertEquals(2 * 2 * 200, standings.get(0).rounds());
+        assertEquals(standings.size(), standings.stream().map(standing -> standing.name).distinct().count());
+    }
+
+    @Test
+    @DisplayName("Results depend only on the master seed")
+    void deterministic() {
+        List<Standing> sequential = tuner().search(2, 2, 7, 1);
+        assertEquals(sequential, tuner().search(2, 2, 7, 4));
+    }
+}
@@ -0,0 +1,59 @@
+package max.rindon.rps.sim;
+
+import max.rindon.rps.ai.Strategies;
+import max.rindon.rps.domain.Move;
+import max.rindon.rps.persistence.Corpus;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class SimulationTest {
+
+    @Test
+    @DisplayName("Counts outcomes from the AI point of view")
+    void outcomes() {
+        MatchResult result = Simulation.play(Strategies.ALWAYS_ROCK,
+                Strategies.sequence(Arrays.asList(Move.ROCK, Move.PAPER, Move.SCISSORS, Move.SCISSORS)), 100);
+        assertEquals(100, result.rounds());
+        assertEquals(50, result.aiWins);
+        assertEquals(25, result.aiLosses);
+        assertEquals(25, result.draws);
+        assertEquals(0.5, result.aiWinRate(), 1e-9);
+    }
+
+    @Test
+    @DisplayName("Opponent sees the AI moves")
+    void opponentHistory() {
+        // AI alternates rock and paper, opponent repeats the previous AI move:
+        // S-R, R-P, P-R, R-P, P-R, ...
+        MatchResult result = Simulation.play(Strategies.alternate(Strategies.ALWAYS_ROCK, Strategies.ALWAYS_PAPER),
+                Strategies.echo(Strategies.ALWAYS_SCISSORS), 10);
+        assertEquals(6, result.aiWins);
+        assertEquals(4, result.aiLosses);
+    }
+
+    @Test
+    @DisplayName("Replays every session of a corpus to its end")
+    void replayCorpus() throws IOException {
+        Path file = Files.createTempFile("corpus", ".txt");
+        try {
+            Files.write(file, "rrrr\nspsp\n".getBytes(StandardCharsets.US_ASCII));
+            try (Corpus corpus = Corpus.open(file)) {
+                MatchResult result = Simulation.replay(() -> Strategies.ALWAYS_PAPER, corpus);
+                assertEquals(8, result.rounds());
+                assertEquals(4, result.aiWins);
+                assertEquals(2, result.aiLosses);
+                assertEquals(2, result.draws);
+            }
+        } finally {
+            Files.delete(file);
+        }
+    }
+}
@@ -0,0 +1,40 @@
+package max.rindon.rps.sim;
+
+import max.rindon.rps.ai.Strategies;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class TournamentTest {
+
+    private static Tournament tournament() {
+        return new Tournament(6, 500)
+                .register("random", Strategies::random)
+                .register("rock", gen -> Strategies.ALWAYS_ROCK)
+                .register("markovChain", gen -> Strategies.markovChain(Strategies.random(gen), gen))
+                .register("echo", gen -> Strategies.echo(Strategies.random(gen)));
+    }
+
+    @Test
+    @DisplayName("Every entrant plays every other one")
+    void roundRobin() {
+        List<Standing> standings = tournament().run(1, 2);
+        assertEquals(4, standings.size());
+        for (Standing standing : standings) {
+            assertEquals(3 * 6 * 500, standing.rounds());
+        }
+        assertEquals("markovChain", standings.get(0).name);
+        assertEquals("rock", standings.get(3).name);
+    }
+
+    @Test
+    @DisplayName("Results depend only on the master seed")
+    void deterministic() {
+        List<Standing> sequential = tournament().run(7, 1);
+        assertEquals(sequential, tournament().run(7, 4));
+        assertEquals(sequential, tournament().run(7, 3));
+    }
+}
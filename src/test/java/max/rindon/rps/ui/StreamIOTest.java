@@ -0,0 +1,70 @@
+package max.rindon.rps.ui;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class StreamIOTest {
+
+    @Test
+    @DisplayName("Output is written on flush and before reading input")
+    void flushPoints() {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        StreamIO io = new StreamIO(new ByteArrayInputStream("r\n".getBytes(StandardCharsets.UTF_8)), out);
+        io.write("Hello");
+        io.write("Rock".getBytes(StandardCharsets.UTF_8));
+        assertEquals("", out.toString());
+        io.flush();
+        assertEquals("Hello\nRock\n", out.toString());
+
+        assertEquals("r", io.prompt("Move?"));
+        assertEquals("Hello\nRock\nMove?\n", out.toString());
+        assertThrows(UncheckedIOException.class, io::read);
+    }
+
+    @Test
+    @DisplayName("Messages longer than the buffer are written as they are")
+    void longMessages() {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        StreamIO io = new StreamIO(new ByteArrayInputStream(new byte[0]), out);
+        char[] chars = new char[20000];
+        Arrays.fill(chars, 'x');
+        String message = new String(chars);
+        io.write("a");
+        io.write(message);
+        io.write(message.substring(1000));
+        io.flush();
+        assertEquals("a\n" + message + "\n" + message.substring(1000) + "\n", out.toString());
+    }
+
+    @Test
+    @DisplayName("Input lines are bounded, and the stream is closed on a longer one")
+    void longLines() {
+        char[] chars = new char[StreamIO.MAX_LINE_LENGTH];
+        Arrays.fill(chars, 'r');
+        String longest = new String(chars);
+        byte[] input = (longest + "\r\n" + longest + "\n" + longest + "rr\n").getBytes(StandardCharsets.UTF_8);
+        boolean[] closed = new boolean[1];
+        StreamIO io = new StreamIO(new ByteArrayInputStream(input), new ByteArrayOutputStream() {
+            @Override
+            public void close() {
+                closed[0] = true;
+            }
+        });
+        assertEquals(longest, io.read());
+        assertEquals(longest, io.read());
+        assertFalse(closed[0]);
+        assertThrows(UncheckedIOException.class, io::read);
+        assertTrue(closed[0]);
+    }
+}
@@ -0,0 +1,67 @@
+package max.rindon.rps.util;
+
+import max.rindon.rps.domain.Move;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class StreamsTest {
+
+    @Test
+    @DisplayName("Slides over windows of consecutive elements")
+    void sliding() {
+        List<String> list = Arrays.asList("a", "b", "c", "d");
+        assertEquals(Arrays.asList(Arrays.asList("a", "b", "c"), Arrays.asList("b", "c", "d")),
+                Streams.sliding(list, 3).collect(Collectors.toList()));
+        assertEquals(0, Streams.sliding(list, 5).count());
+        assertThrows(IllegalArgumentException.class, () -> Streams.sliding(list, 0));
+    }
+
+    @Test
+    @DisplayName("Parallel sliding keeps the order of windows")
+    void parallelSliding() {
+        List<Integer> list = new ArrayList<>();
+        for (int i = 0; i < 10000; i++) {
+            list.add(i);
+        }
+        List<Integer> firsts = Streams.sliding(list, 7).parallel().map(window -> window.get(0)).collect(Collectors.toList());
+        assertEquals(list.subList(0, list.size() - 6), firsts);
+    }
+
+    @Test
+    @DisplayName("Window codes are base 3 over move ordinals")
+    void slidingCodes() {
+        List<Move> moves = Arrays.asList(Move.ROCK, Move.PAPER, Move.SCISSORS, Move.SCISSORS);
+        assertArrayEquals(new int[]{0 * 9 + 1 * 3 + 2, 1 * 9 + 2 * 3 + 2}, Streams.slidingCodes(moves, 3).toArray());
+        assertArrayEquals(new int[]{0, 1, 2, 2}, Streams.slidingCodes(moves, 1).toArray());
+        assertEquals(0, Streams.slidingCodes(Collections.emptyList(), 2).count());
+        assertThrows(IllegalArgumentException.class, () -> Streams.slidingCodes(moves, Streams.MAX_CODED_WINDOW + 1));
+    }
+
+    @Test
+    @DisplayName("Rolled codes match codes computed from scratch, also in parallel")
+    void rolledCodes() {
+        Random random = new Random(42);
+        List<Move> moves = new ArrayList<>();
+        for (int i = 0; i < 20000; i++) {
+            moves.add(Move.values()[random.nextInt(3)]);
+        }
+        for (int size : new int[]{2, 5, Streams.MAX_CODED_WINDOW}) {
+            int[] expected = Streams.sliding(moves, size)
+                    .mapToInt(window -> window.stream().mapToInt(Move::ordinal).reduce(0, (code, move) -> code * 3 + move))
+                    .toArray();
+            assertArrayEquals(expected, Streams.slidingCodes(moves, size).toArray());
+            assertArrayEquals(expected, Streams.slidingCodes(moves, size).parallel().toArray());
+        }
+    }
+}